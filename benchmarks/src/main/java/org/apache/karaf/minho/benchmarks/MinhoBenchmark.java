@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.benchmarks;
+
+import org.apache.karaf.minho.boot.Minho;
+import org.apache.karaf.minho.boot.service.ConfigService;
+import org.apache.karaf.minho.boot.service.LifeCycleService;
+import org.apache.karaf.minho.boot.spi.Service;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Minho runtime start/close with N synthetic services.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MinhoBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    private int services;
+
+    @Param({ "1", "4" })
+    private int startupThreads;
+
+    private final List<Service> syntheticServices = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        // avoid measuring the console logging
+        Logger.getLogger("org.apache.karaf.minho").setLevel(Level.WARNING);
+        for (int i = 0; i < services; i++) {
+            syntheticServices.add(SyntheticService.newInstance());
+        }
+    }
+
+    @Benchmark
+    public Minho startClose() {
+        List<Service> all = new ArrayList<>(syntheticServices.size() + 2);
+        all.add(new ConfigService());
+        all.add(new LifeCycleService());
+        all.addAll(syntheticServices);
+        Minho minho = Minho.builder().loader(all::stream).startupThreads(startupThreads).build().start();
+        minho.close();
+        return minho;
+    }
+
+}
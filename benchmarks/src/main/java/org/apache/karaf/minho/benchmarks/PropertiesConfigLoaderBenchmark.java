@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.benchmarks;
+
+import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.config.properties.PropertiesConfigLoaderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Properties config parsing with thousands of <code>application.*</code> keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertiesConfigLoaderBenchmark {
+
+    // applications, each with 10 keys (type, url, profile and 7 properties)
+    @Param({ "100", "1000", "5000" })
+    private int applications;
+
+    private Properties properties;
+    private PropertiesConfigLoaderService service;
+
+    @Setup
+    public void setup() {
+        service = new PropertiesConfigLoaderService();
+        properties = new Properties();
+        properties.put("foo", "bar");
+        for (int i = 0; i < applications; i++) {
+            properties.put("application.app" + i + ".type", "spring-boot");
+            properties.put("application.app" + i + ".url", "file:app" + i + ".jar");
+            properties.put("application.app" + i + ".profile", "profile" + i);
+            for (int j = 0; j < 7; j++) {
+                properties.put("application.app" + i + ".property" + j, "value" + j);
+            }
+        }
+    }
+
+    @Benchmark
+    public Config parse() {
+        return service.parse(properties);
+    }
+
+}
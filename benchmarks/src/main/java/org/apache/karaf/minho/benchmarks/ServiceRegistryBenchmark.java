@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.benchmarks;
+
+import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.service.ClassLoaderService;
+import org.apache.karaf.minho.boot.service.ConfigService;
+import org.apache.karaf.minho.boot.service.LifeCycleService;
+import org.apache.karaf.minho.boot.service.ServiceRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service registry lookups: direct (service class) vs hierarchy (super class or interface).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceRegistryBenchmark {
+
+    @Param({ "0", "100" })
+    private int services;
+
+    private ServiceRegistry serviceRegistry;
+
+    @Setup
+    public void setup() {
+        Logger.getLogger("org.apache.karaf.minho").setLevel(Level.WARNING);
+        serviceRegistry = new ServiceRegistry();
+        serviceRegistry.add(new ConfigService());
+        serviceRegistry.add(new LifeCycleService());
+        serviceRegistry.add(new ClassLoaderService());
+        for (int i = 0; i < services; i++) {
+            serviceRegistry.add(SyntheticService.newInstance());
+        }
+    }
+
+    @Benchmark
+    public ConfigService direct() {
+        return serviceRegistry.get(ConfigService.class);
+    }
+
+    @Benchmark
+    public Config hierarchy() {
+        return serviceRegistry.get(Config.class);
+    }
+
+    @Benchmark
+    public Object missing() {
+        return serviceRegistry.get(Runnable.class);
+    }
+
+    @Benchmark
+    public long findByType() {
+        return serviceRegistry.findByType(AutoCloseable.class).count();
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.benchmarks;
+
+import org.apache.karaf.minho.boot.service.ServiceRegistry;
+import org.apache.karaf.minho.boot.spi.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Synthetic service used by the benchmarks.
+ * The service registry is keyed by service class, so each synthetic service is defined by its own class loader.
+ */
+public class SyntheticService implements Service {
+
+    private int registered;
+
+    @Override
+    public List<Class<?>> dependencies() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void onRegister(ServiceRegistry serviceRegistry) {
+        registered++;
+    }
+
+    /**
+     * Create a synthetic service with a distinct class.
+     *
+     * @return the service instance.
+     */
+    public static Service newInstance() {
+        try {
+            return (Service) new SyntheticClassLoader().loadClass(SyntheticService.class.getName()).getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't create synthetic service", e);
+        }
+    }
+
+    private static class SyntheticClassLoader extends ClassLoader {
+
+        SyntheticClassLoader() {
+            super(SyntheticService.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!SyntheticService.class.getName().equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    try (InputStream stream = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        byte[] bytecode = stream.readAllBytes();
+                        loaded = defineClass(name, bytecode, 0, bytecode.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return loaded;
+            }
+        }
+
+    }
+
+}
@@ -20,13 +20,19 @@ package org.apache.karaf.minho.boot;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.java.Log;
+import org.apache.karaf.minho.boot.service.IndexedServiceLoader;
 import org.apache.karaf.minho.boot.service.ServiceRegistry;
 import org.apache.karaf.minho.boot.spi.Service;
 import org.apache.karaf.minho.boot.spi.ServiceLoader;
 
+import java.net.URL;
+import java.nio.file.Paths;
 import java.util.Comparator;
+import java.util.List;
 import java.util.stream.Stream;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * Main Karaf runtime.
  */
@@ -36,6 +42,7 @@ import java.util.stream.Stream;
 public class Minho implements AutoCloseable {
 
     private final ServiceLoader loader;
+    private final int startupThreads;
     private final ServiceRegistry serviceRegistry = new ServiceRegistry();
 
     /**
@@ -53,12 +60,49 @@ public class Minho implements AutoCloseable {
                 System.setProperty("java.util.logging.SimpleFormatter.format", "%1$tF %1$tT.%1$tN %4$s [ %2$s ] : %5$s%6$s%n");
             }
         }
-        (this.loader == null ? loadServices() : this.loader.load()).forEach(serviceRegistry::add);
+        final List<Service> services = (this.loader == null ? loadServices() : this.loader.load()).collect(toList());
+        serviceRegistry.addAll(services, startupThreads());
         serviceRegistry.start();
+        serviceRegistry.getBootReport().started();
+        log.info("Minho started in " + serviceRegistry.getBootReport().getStartupTime() + "ms");
+        final String bootReport = bootReport();
+        if (bootReport != null) {
+            serviceRegistry.getBootReport().write(Paths.get(bootReport));
+        }
         return this;
     }
 
+    /**
+     * Boot report file: <code>MINHO_BOOT_REPORT</code> env variable or <code>minho.boot.report</code> system property.
+     * Default is null (no boot report file).
+     */
+    private String bootReport() {
+        String bootReport = System.getenv("MINHO_BOOT_REPORT");
+        bootReport = (System.getProperty("minho.boot.report") != null) ? System.getProperty("minho.boot.report") : bootReport;
+        return bootReport;
+    }
+
+    /**
+     * Number of threads used to register the services: builder value, <code>MINHO_STARTUP_THREADS</code> env variable
+     * or <code>minho.startup.threads</code> system property. Default is 1 (sequential registration).
+     */
+    private int startupThreads() {
+        if (startupThreads > 0) {
+            return startupThreads;
+        }
+        int threads = 1;
+        threads = (System.getenv("MINHO_STARTUP_THREADS") != null) ? Integer.parseInt(System.getenv("MINHO_STARTUP_THREADS")) : threads;
+        threads = (System.getProperty("minho.startup.threads") != null) ? Integer.parseInt(System.getProperty("minho.startup.threads")) : threads;
+        return threads;
+    }
+
     private Stream<Service> loadServices() {
+        final ClassLoader classLoader = (Thread.currentThread().getContextClassLoader() != null) ? Thread.currentThread().getContextClassLoader() : Minho.class.getClassLoader();
+        final URL index = classLoader.getResource(IndexedServiceLoader.INDEX);
+        if (index != null) {
+            log.info("Loading services from index " + index);
+            return new IndexedServiceLoader(index, classLoader).load();
+        }
         return java.util.ServiceLoader.load(Service.class).stream().map(java.util.ServiceLoader.Provider::get)
                 .sorted(Comparator.comparingInt(service -> Integer.getInteger(service.name() + ".priority", service.priority())));
     }
@@ -19,7 +19,6 @@ package org.apache.karaf.minho.boot.config;
 
 import lombok.Data;
 
-import java.util.HashMap;
 import java.util.Map;
 
 @Data
@@ -30,7 +29,11 @@ public class Application {
     private String url;
     private String type;
     private String profile;
-    private Map<String, String> properties = new HashMap<>();
+    private Map<String, String> properties = new ResolvedProperties();
+
+    public void setProperties(Map<String, String> properties) {
+        this.properties = ResolvedProperties.of(properties);
+    }
 
     public String getProperty(String key) {
         return getProperty(key, null);
@@ -17,19 +17,35 @@
  */
 package org.apache.karaf.minho.boot.config;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.extern.java.Log;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+@Log
 @Data
 public class Config {
 
-    private Map<String, String> properties = new HashMap<>();
+    private volatile Map<String, String> properties = new ResolvedProperties();
     private List<Profile> profiles = new ArrayList<>();
     private List<Application> applications = new ArrayList<>();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final List<ConfigListener> listeners = new CopyOnWriteArrayList<>();
 
     public void merge(final Config config) {
         if (config == null) {
@@ -41,6 +57,71 @@ public class Config {
         applications.addAll(config.getApplications());
     }
 
+    /**
+     * Reload the properties coming from a config source, and notify the listeners with the changed keys.
+     * The keys removed from the source are only removed from the config if their value still comes from the source.
+     *
+     * @param previous the properties previously loaded from the source.
+     * @param current the properties currently loaded from the source.
+     * @return the changed (added, updated or removed) keys.
+     */
+    public Set<String> reload(final Map<String, String> previous, final Map<String, String> current) {
+        final Set<String> changed = new TreeSet<>();
+        final Map<String, String> updated = new HashMap<>();
+        current.forEach((key, value) -> {
+            if (!Objects.equals(value, previous.get(key))) {
+                changed.add(key);
+                updated.put(key, value);
+            }
+        });
+        final Map<String, String> properties = this.properties;
+        // the properties lock makes the reload atomic for the lookups (the snapshot is not rebuilt meanwhile)
+        synchronized (properties) {
+            // a removed key is only removed if its value still comes from the source (not overridden by another source)
+            previous.forEach((key, value) -> {
+                if (!current.containsKey(key) && Objects.equals(value, properties.get(key))) {
+                    changed.add(key);
+                    properties.remove(key);
+                }
+            });
+            if (changed.isEmpty()) {
+                return changed;
+            }
+            properties.putAll(updated);
+        }
+        log.info("Configuration changed: " + changed);
+        listeners.forEach(listener -> {
+            try {
+                listener.onChange(this, changed);
+            } catch (final Exception e) {
+                log.warning("Config listener failed: " + e.getMessage());
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Add a listener notified when the config properties change.
+     *
+     * @param listener the listener.
+     */
+    public void addListener(final ConfigListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a config listener.
+     *
+     * @param listener the listener.
+     */
+    public void removeListener(final ConfigListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void setProperties(Map<String, String> properties) {
+        this.properties = ResolvedProperties.of(properties);
+    }
+
     public String getProperty(String key) {
         return getProperty(key, null);
     }
@@ -49,18 +130,15 @@ public class Config {
         return getProperty(key, this.properties, defaultValue);
     }
 
+    /**
+     * Get a property, overridden by the corresponding environment variable (<code>foo.bar</code> is overridden by <code>MINHO_FOO_BAR</code>)
+     * or system property. The resolved properties are cached, see {@link ResolvedProperties}.
+     */
     protected static String getProperty(String key, Map<String, String> properties, String defaultValue) {
-        String envKey = key.replaceAll(".", "_").toUpperCase();
-        if (System.getenv(envKey) != null) {
-            return System.getenv(envKey);
-        }
-        if (System.getProperty(key) != null) {
-            return System.getProperty(key);
-        }
-        if (properties.get(key) != null) {
-            return properties.get(key);
+        if (properties instanceof ResolvedProperties) {
+            return ((ResolvedProperties) properties).resolve(key, defaultValue);
         }
-        return defaultValue;
+        return ResolvedProperties.resolve(key, properties, defaultValue);
     }
 
 }
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.boot.config;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Binary Config snapshot, precompiled at build time (tooling) and decoded at boot without parsing nor binding.
+ * Format: magic, version, properties, profiles (name, properties, urls), applications (name, version, url, type, profile, properties).
+ * Strings are encoded as length (-1 for null) followed by UTF-8 bytes.
+ */
+public final class ConfigSnapshot {
+
+    public static final String LOCATION = "META-INF/minho/config.bin";
+
+    private static final int MAGIC = 0x4D434647; // MCFG
+    private static final int VERSION = 1;
+
+    private ConfigSnapshot() {
+        // utility class
+    }
+
+    /**
+     * Retrieve the config snapshot embedded in the runtime.
+     *
+     * @return the snapshot URL, null if the runtime doesn't embed a config snapshot.
+     */
+    public static URL embedded() {
+        final ClassLoader classLoader = ConfigSnapshot.class.getClassLoader();
+        return (classLoader != null) ? classLoader.getResource(LOCATION) : ClassLoader.getSystemResource(LOCATION);
+    }
+
+    /**
+     * Write a config snapshot.
+     *
+     * @param config the config.
+     * @param outputStream the snapshot output stream.
+     * @throws IOException if the snapshot can't be written.
+     */
+    public static void write(final Config config, final OutputStream outputStream) throws IOException {
+        final DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        writeMap(output, config.getProperties());
+        output.writeInt(config.getProfiles().size());
+        for (final Profile profile : config.getProfiles()) {
+            writeString(output, profile.getName());
+            writeMap(output, profile.getProperties());
+            writeStrings(output, profile.getUrls());
+        }
+        output.writeInt(config.getApplications().size());
+        for (final Application application : config.getApplications()) {
+            writeString(output, application.getName());
+            writeString(output, application.getVersion());
+            writeString(output, application.getUrl());
+            writeString(output, application.getType());
+            writeString(output, application.getProfile());
+            writeMap(output, application.getProperties());
+        }
+        output.flush();
+    }
+
+    /**
+     * Load a config snapshot.
+     *
+     * @param snapshot the snapshot URL.
+     * @param config the target config.
+     * @throws IOException if the snapshot can't be read.
+     */
+    public static void load(final URL snapshot, final Config config) throws IOException {
+        try (InputStream inputStream = snapshot.openStream()) {
+            read(ByteBuffer.wrap(inputStream.readAllBytes()), config);
+        }
+    }
+
+    /**
+     * Decode a config snapshot.
+     *
+     * @param buffer the snapshot buffer.
+     * @param config the target config.
+     */
+    public static void read(final ByteBuffer buffer, final Config config) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalStateException("Invalid config snapshot");
+        }
+        final int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported config snapshot version " + version);
+        }
+        readMap(buffer, config.getProperties());
+        for (int i = buffer.getInt(); i > 0; i--) {
+            final Profile profile = new Profile();
+            profile.setName(readString(buffer));
+            readMap(buffer, profile.getProperties());
+            for (int j = buffer.getInt(); j > 0; j--) {
+                profile.getUrls().add(readString(buffer));
+            }
+            config.getProfiles().add(profile);
+        }
+        for (int i = buffer.getInt(); i > 0; i--) {
+            final Application application = new Application();
+            application.setName(readString(buffer));
+            application.setVersion(readString(buffer));
+            application.setUrl(readString(buffer));
+            application.setType(readString(buffer));
+            application.setProfile(readString(buffer));
+            readMap(buffer, application.getProperties());
+            config.getApplications().add(application);
+        }
+    }
+
+    private static void writeMap(final DataOutputStream output, final Map<String, String> map) throws IOException {
+        output.writeInt(map.size());
+        for (final Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(output, entry.getKey());
+            writeString(output, entry.getValue());
+        }
+    }
+
+    private static void writeStrings(final DataOutputStream output, final Collection<String> strings) throws IOException {
+        output.writeInt(strings.size());
+        for (final String string : strings) {
+            writeString(output, string);
+        }
+    }
+
+    private static void writeString(final DataOutputStream output, final String string) throws IOException {
+        if (string == null) {
+            output.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static void readMap(final ByteBuffer buffer, final Map<String, String> map) {
+        for (int i = buffer.getInt(); i > 0; i--) {
+            final String key = readString(buffer);
+            final String value = readString(buffer);
+            map.put(key, value);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        } else {
+            final byte[] bytes = new byte[length];
+            buffer.duplicate().get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+}
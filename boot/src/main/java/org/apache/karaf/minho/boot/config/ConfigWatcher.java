@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.boot.config;
+
+import lombok.extern.java.Log;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch a config file, calling the reload callback (debounced) when the file changes.
+ * Any event in the file directory is considered (a Kubernetes ConfigMap update swaps a <code>..data</code> symlink,
+ * without event on the file itself), and the file is reloaded only if its resolved path or content changed.
+ * Enabled with <code>MINHO_CONFIG_WATCH</code> env variable or <code>minho.config.watch</code> system property,
+ * the debounce delay (default 500ms) is defined by <code>MINHO_CONFIG_WATCH_DEBOUNCE</code> env variable or
+ * <code>minho.config.watch.debounce</code> system property.
+ */
+@Log
+public class ConfigWatcher implements AutoCloseable {
+
+    private final Path file;
+    private final long debounce;
+    private final Runnable reload;
+    private final WatchService watchService;
+    private final Thread thread;
+    private Path realPath;
+    private byte[] digest;
+
+    public ConfigWatcher(final Path file, final long debounce, final Runnable reload) throws IOException {
+        this.file = file.toAbsolutePath().normalize();
+        this.debounce = debounce;
+        this.reload = reload;
+        this.realPath = realPath();
+        this.digest = digest();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        this.thread = new Thread(this::watch, "minho-config-watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        log.info("Watching configuration " + this.file);
+    }
+
+    /**
+     * Create a watcher on the config file if watch is enabled.
+     *
+     * @param file the config file.
+     * @param reload the reload callback.
+     * @return the watcher or null if watch is not enabled.
+     * @throws IOException if the watcher can't be created.
+     */
+    public static ConfigWatcher watch(final String file, final Runnable reload) throws IOException {
+        if (!enabled()) {
+            return null;
+        }
+        return new ConfigWatcher(Path.of(file), Long.parseLong(property("MINHO_CONFIG_WATCH_DEBOUNCE", "minho.config.watch.debounce", "500")), reload);
+    }
+
+    /**
+     * Check if the config files watch is enabled.
+     *
+     * @return true if the watch is enabled, false else.
+     */
+    public static boolean enabled() {
+        return Boolean.parseBoolean(property("MINHO_CONFIG_WATCH", "minho.config.watch", "false"));
+    }
+
+    private static String property(final String env, final String key, final String defaultValue) {
+        String value = defaultValue;
+        value = (System.getenv(env) != null) ? System.getenv(env) : value;
+        value = (System.getProperty(key) != null) ? System.getProperty(key) : value;
+        return value;
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                reset(watchService.take());
+                // debounce: wait for the directory to be stable (editors and tools often write in several steps)
+                WatchKey key;
+                while ((key = watchService.poll(debounce, TimeUnit.MILLISECONDS)) != null) {
+                    reset(key);
+                }
+                if (!changed()) {
+                    continue;
+                }
+                log.info("Reloading configuration " + file);
+                try {
+                    reload.run();
+                } catch (final Exception e) {
+                    log.warning("Can't reload configuration " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (final InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private static void reset(final WatchKey key) {
+        key.pollEvents();
+        key.reset();
+    }
+
+    /**
+     * Check if the file resolved path (symlinks) or content changed since the last check.
+     */
+    private boolean changed() {
+        final Path currentPath = realPath();
+        final byte[] currentDigest = digest();
+        if (currentDigest == null) {
+            // file removed (or being replaced), waiting for the next event
+            return false;
+        }
+        final boolean changed = !Objects.equals(currentPath, realPath) || !Arrays.equals(currentDigest, digest);
+        realPath = currentPath;
+        digest = currentDigest;
+        return changed;
+    }
+
+    private Path realPath() {
+        try {
+            return file.toRealPath();
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    private byte[] digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file));
+        } catch (final IOException e) {
+            return null;
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Can't compute configuration digest", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+}
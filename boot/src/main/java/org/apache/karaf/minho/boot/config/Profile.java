@@ -20,7 +20,6 @@ package org.apache.karaf.minho.boot.config;
 import lombok.Data;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,9 +27,13 @@ import java.util.Map;
 public class Profile {
 
     private String name;
-    private Map<String, String> properties = new HashMap<>();
+    private Map<String, String> properties = new ResolvedProperties();
     private List<String> urls = new ArrayList<>();
 
+    public void setProperties(Map<String, String> properties) {
+        this.properties = ResolvedProperties.of(properties);
+    }
+
     public String getProperty(String key) {
         return getProperty(key, null);
     }
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.boot.config;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Properties map keeping a resolved snapshot (environment variables and system properties overrides applied)
+ * of its entries, so a lookup is a single hash probe.
+ * The snapshot is invalidated by any change of the properties and rebuilt on the next lookup: the system properties
+ * overriding a defined property are re-read at this time. A key not defined in the properties is resolved from the
+ * environment variables and system properties at each lookup.
+ * The properties are backed by a concurrent map, a change is visible to the other threads (the config can be reloaded
+ * while the properties are looked up). The changes done while holding the lock of this map are atomic for the lookups.
+ * Environment variables override system properties which override the properties.
+ * The environment variable of a property is the property key upper case, prefixed by <code>MINHO_</code>, with any non alphanumeric
+ * character replaced by <code>_</code> (<code>http.port</code> is overridden by <code>MINHO_HTTP_PORT</code> environment variable).
+ */
+class ResolvedProperties extends AbstractMap<String, String> {
+
+    private static final String ENV_PREFIX = "MINHO_";
+    private static final Map<String, String> ENV = System.getenv();
+    private static final boolean ENV_OVERRIDES = ENV.keySet().stream().anyMatch(key -> key.startsWith(ENV_PREFIX));
+
+    private final Map<String, String> properties;
+    private volatile Map<String, String> resolved;
+    private int version;
+
+    ResolvedProperties() {
+        this.properties = new ConcurrentHashMap<>();
+    }
+
+    static ResolvedProperties of(final Map<String, String> properties) {
+        if (properties instanceof ResolvedProperties) {
+            return (ResolvedProperties) properties;
+        }
+        final ResolvedProperties resolvedProperties = new ResolvedProperties();
+        if (properties != null) {
+            properties.forEach(resolvedProperties::put);
+        }
+        return resolvedProperties;
+    }
+
+    /**
+     * Resolve a property.
+     *
+     * @param key the property key.
+     * @param defaultValue the default value if the property is not defined.
+     * @return the property value.
+     */
+    String resolve(final String key, final String defaultValue) {
+        Map<String, String> snapshot = resolved;
+        if (snapshot == null) {
+            snapshot = snapshot();
+        }
+        final String value = snapshot.get(key);
+        if (value != null) {
+            return value;
+        }
+        // not in the properties, only defined by environment or system
+        return resolve(key, Collections.emptyMap(), defaultValue);
+    }
+
+    static String resolve(final String key, final Map<String, String> properties, final String defaultValue) {
+        String value = ENV_OVERRIDES ? ENV.get(envKey(key)) : null;
+        if (value != null) {
+            return value;
+        }
+        value = System.getProperty(key);
+        if (value != null) {
+            return value;
+        }
+        value = properties.get(key);
+        return (value != null) ? value : defaultValue;
+    }
+
+    static String envKey(final String key) {
+        final char[] chars = key.toUpperCase(Locale.ROOT).toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (!Character.isLetterOrDigit(chars[i])) {
+                chars[i] = '_';
+            }
+        }
+        return ENV_PREFIX + new String(chars);
+    }
+
+    private synchronized Map<String, String> snapshot() {
+        Map<String, String> snapshot = resolved;
+        if (snapshot == null) {
+            final int current = version;
+            snapshot = new HashMap<>(properties.size() * 4 / 3 + 1);
+            for (final Entry<String, String> entry : properties.entrySet()) {
+                final String value = resolve(entry.getKey(), properties, null);
+                if (value != null) {
+                    snapshot.put(entry.getKey(), value);
+                }
+            }
+            if (current == version) {
+                // don't publish a snapshot if the properties changed meanwhile
+                resolved = Collections.unmodifiableMap(snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    private synchronized void invalidate() {
+        version++;
+        resolved = null;
+    }
+
+    @Override
+    public String get(final Object key) {
+        return properties.get(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return properties.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return properties.size();
+    }
+
+    @Override
+    public String put(final String key, final String value) {
+        try {
+            // a concurrent map doesn't accept null values, a null value removes the property
+            return (value == null) ? properties.remove(key) : properties.put(key, value);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public String remove(final Object key) {
+        try {
+            return properties.remove(key);
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void putAll(final Map<? extends String, ? extends String> map) {
+        try {
+            map.forEach((key, value) -> {
+                if (value == null) {
+                    properties.remove(key);
+                } else {
+                    properties.put(key, value);
+                }
+            });
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            properties.clear();
+        } finally {
+            invalidate();
+        }
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                final Iterator<Entry<String, String>> iterator = properties.entrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        final Entry<String, String> entry = iterator.next();
+                        return new SimpleEntry<>(entry) {
+                            @Override
+                            public String setValue(final String value) {
+                                super.setValue(value);
+                                try {
+                                    return entry.setValue(value);
+                                } finally {
+                                    invalidate();
+                                }
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        try {
+                            iterator.remove();
+                        } finally {
+                            invalidate();
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return properties.size();
+            }
+        };
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.boot.service;
+
+import lombok.Data;
+import lombok.extern.java.Log;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Boot profile report, recording the wall-clock time and the allocated bytes of the runtime boot steps
+ * (services registration, lifecycle callbacks, class loaders creation).
+ */
+@Log
+public class BootReport {
+
+    public static final String SERVICE = "service";
+    public static final String LIFECYCLE = "lifecycle";
+    public static final String CLASSLOADER = "classloader";
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    // name of the step running in the current thread (allows to attach the lifecycle callbacks to the registering service)
+    private final ThreadLocal<String> current = new ThreadLocal<>();
+    private final List<Timing> timings = Collections.synchronizedList(new ArrayList<>());
+    private final long created = System.currentTimeMillis();
+    private volatile long started = -1;
+
+    /**
+     * Measure a boot step.
+     *
+     * @param type the step type ({@link #SERVICE}, {@link #LIFECYCLE}, {@link #CLASSLOADER}).
+     * @param name the step name (service name, lifecycle phase, ...).
+     * @param step the step.
+     * @param <T> the step result type.
+     * @return the step result.
+     * @throws Exception if the step fails (the timing is recorded anyway).
+     */
+    public <T> T measure(final String type, final String name, final Callable<T> step) throws Exception {
+        final String parent = current.get();
+        current.set(name);
+        final long allocatedBefore = allocatedBytes();
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final T result = step.call();
+            failed = false;
+            return result;
+        } finally {
+            if (parent == null) {
+                current.remove();
+            } else {
+                current.set(parent);
+            }
+            final long duration = System.nanoTime() - start;
+            final long allocatedAfter = allocatedBytes();
+            final Timing timing = new Timing();
+            timing.setType(type);
+            timing.setName(name);
+            timing.setThread(Thread.currentThread().getName());
+            timing.setDuration(duration / 1_000_000.0);
+            timing.setAllocated((allocatedBefore >= 0 && allocatedAfter >= 0) ? allocatedAfter - allocatedBefore : -1);
+            timing.setFailed(failed);
+            timings.add(timing);
+        }
+    }
+
+    /**
+     * Measure a boot step.
+     *
+     * @param type the step type ({@link #SERVICE}, {@link #LIFECYCLE}, {@link #CLASSLOADER}).
+     * @param name the step name (service name, lifecycle phase, ...).
+     * @param step the step.
+     */
+    public void measure(final String type, final String name, final Runnable step) {
+        try {
+            measure(type, name, () -> {
+                step.run();
+                return null;
+            });
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Retrieve the name of the step running in the current thread.
+     *
+     * @return the current step name, null if no step is running.
+     */
+    public String current() {
+        return current.get();
+    }
+
+    /**
+     * Mark the runtime as started.
+     */
+    public void started() {
+        started = System.currentTimeMillis() - created;
+    }
+
+    /**
+     * Retrieve the boot time.
+     *
+     * @return the boot time in milliseconds, -1 if the runtime is not started.
+     */
+    public long getStartupTime() {
+        return started;
+    }
+
+    /**
+     * Retrieve the recorded timings.
+     *
+     * @return the timings, in recording order.
+     */
+    public List<Timing> getTimings() {
+        synchronized (timings) {
+            return new ArrayList<>(timings);
+        }
+    }
+
+    /**
+     * Render the report as JSON.
+     *
+     * @return the JSON report.
+     */
+    public String toJson() {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\"startupTime\":").append(started).append(",\"timings\":[");
+        final List<Timing> timings = getTimings();
+        for (int i = 0; i < timings.size(); i++) {
+            final Timing timing = timings.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"type\":").append(quote(timing.getType()))
+                    .append(",\"name\":").append(quote(timing.getName()))
+                    .append(",\"thread\":").append(quote(timing.getThread()))
+                    .append(",\"duration\":").append(timing.getDuration())
+                    .append(",\"allocated\":").append(timing.getAllocated())
+                    .append(",\"failed\":").append(timing.isFailed())
+                    .append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Write the JSON report to a file.
+     *
+     * @param file the report file.
+     */
+    public void write(final Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, toJson().getBytes(StandardCharsets.UTF_8));
+            log.info("Boot report written in " + file);
+        } catch (final IOException e) {
+            log.warning("Can't write boot report " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            if (threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static String quote(final String value) {
+        if (value == null) {
+            return "null";
+        }
+        final StringBuilder quoted = new StringBuilder("\"");
+        for (final char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Timing of a boot step.
+     */
+    @Data
+    public static class Timing {
+        private String type;
+        private String name;
+        private String thread;
+        private double duration; // milliseconds
+        private long allocated; // bytes, -1 if not supported
+        private boolean failed;
+    }
+
+}
@@ -18,19 +18,27 @@
 package org.apache.karaf.minho.boot.service;
 
 import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.Profile;
 import org.apache.karaf.minho.boot.spi.Service;
 
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.HashMap;
+import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Main class loader manager service.
+ * The profile class loaders are created at first use: this service is registered before the config loaders
+ * merging the profiles in the config.
  */
 public class ClassLoaderService implements Service, AutoCloseable {
 
-    private Map<String, URLClassLoader> profiles = new HashMap<>();
+    private final Map<String, URLClassLoader> profiles = new ConcurrentHashMap<>();
+    private volatile Config config;
+    private volatile BootReport bootReport;
 
     @Override
     public String name() {
@@ -42,6 +50,11 @@ public class ClassLoaderService implements Service, AutoCloseable {
         return -DEFAULT_PRIORITY;
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return List.of(Config.class);
+    }
+
     @Override
     public void close() {
         // no-op
@@ -49,15 +62,45 @@ public class ClassLoaderService implements Service, AutoCloseable {
 
     @Override
     public void onRegister(ServiceRegistry serviceRegistry) throws Exception {
-        Config configService = serviceRegistry.get(Config.class);
-        configService.getProfiles().stream().forEach(profile -> {
-            URLClassLoader profileClassLoader = new URLClassLoader(profile.getUrls().toArray(new URL[]{}), this.getClass().getClassLoader());
-            profiles.put(profile.getName(), profileClassLoader);
-        });
+        this.config = serviceRegistry.get(Config.class);
+        this.bootReport = serviceRegistry.getBootReport();
     }
 
     public URLClassLoader getClassLoader(String profile) {
-        return profiles.get(profile);
+        if (profile == null || config == null) {
+            return null;
+        }
+        URLClassLoader classLoader = profiles.get(profile);
+        if (classLoader != null) {
+            return classLoader;
+        }
+        return config.getProfiles().stream()
+                .filter(candidate -> profile.equals(candidate.getName()))
+                .findFirst()
+                .map(candidate -> profiles.computeIfAbsent(profile, name -> {
+                    try {
+                        return bootReport.measure(BootReport.CLASSLOADER, name, () -> create(candidate));
+                    } catch (final RuntimeException e) {
+                        throw e;
+                    } catch (final Exception e) {
+                        throw new IllegalStateException("Can't create " + name + " profile class loader", e);
+                    }
+                }))
+                .orElse(null);
+    }
+
+    private URLClassLoader create(final Profile profile) throws MalformedURLException {
+        final URL[] urls = new URL[profile.getUrls().size()];
+        for (int i = 0; i < urls.length; i++) {
+            final String url = profile.getUrls().get(i);
+            try {
+                urls[i] = new URL(url);
+            } catch (final MalformedURLException e) {
+                // not a URL, a path
+                urls[i] = Paths.get(url).toUri().toURL();
+            }
+        }
+        return new URLClassLoader(urls, this.getClass().getClassLoader());
     }
 
 }
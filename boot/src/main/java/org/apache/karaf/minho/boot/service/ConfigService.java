@@ -20,6 +20,9 @@ package org.apache.karaf.minho.boot.service;
 import org.apache.karaf.minho.boot.config.Config;
 import org.apache.karaf.minho.boot.spi.Service;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Core Karaf Config service holding the main Karaf configuration.
  */
@@ -33,4 +36,9 @@ public class ConfigService extends Config implements Service {
     public int priority() {
         return -Integer.MAX_VALUE;
     }
+
+    @Override
+    public List<Class<?>> dependencies() {
+        return Collections.emptyList();
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.boot.service;
+
+import lombok.extern.java.Log;
+import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.ConfigSnapshot;
+import org.apache.karaf.minho.boot.spi.Service;
+
+import java.net.URL;
+import java.util.List;
+
+/**
+ * Load the config snapshot precompiled at build time (if embedded in the runtime).
+ * The snapshot replaces the embedded config: it's not loaded when the config is provided at runtime
+ * (<code>MINHO_CONFIG</code>, <code>MINHO_CONFIG_FILE</code> env variables or <code>minho.config</code> system property).
+ */
+@Log
+public class ConfigSnapshotLoaderService implements Service {
+
+    @Override
+    public String name() {
+        return "minho-config-snapshot-service";
+    }
+
+    @Override
+    public int priority() {
+        // before the other config loaders
+        return (-DEFAULT_PRIORITY) + 50;
+    }
+
+    @Override
+    public List<Class<?>> dependencies() {
+        // ordering barrier (like the other config loaders): the next services wait for the merged config
+        return null;
+    }
+
+    @Override
+    public void onRegister(final ServiceRegistry serviceRegistry) throws Exception {
+        final URL snapshot = ConfigSnapshot.embedded();
+        if (snapshot == null) {
+            return;
+        }
+        if (System.getenv("MINHO_CONFIG") != null || System.getenv("MINHO_CONFIG_FILE") != null || System.getProperty("minho.config") != null) {
+            log.info("Configuration provided at runtime, ignoring configuration snapshot " + snapshot);
+            return;
+        }
+        log.info("Loading configuration snapshot " + snapshot);
+        ConfigSnapshot.load(snapshot, serviceRegistry.get(Config.class));
+    }
+
+}
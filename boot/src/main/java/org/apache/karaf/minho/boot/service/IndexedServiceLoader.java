@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.boot.service;
+
+import lombok.Data;
+import lombok.extern.java.Log;
+import org.apache.karaf.minho.boot.spi.Service;
+import org.apache.karaf.minho.boot.spi.ServiceLoader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service loader using a precomputed (build time) services index, avoiding <code>META-INF/services</code> classpath scanning.
+ * The index contains one service per line (class name, priority, name), ordered by priority.
+ * The services dependencies are read from the instances, as the services are all instantiated to be registered.
+ */
+@Log
+public class IndexedServiceLoader implements ServiceLoader {
+
+    public static final String INDEX = "META-INF/minho/services.index";
+
+    private final URL index;
+    private final ClassLoader classLoader;
+
+    public IndexedServiceLoader(final URL index, final ClassLoader classLoader) {
+        this.index = index;
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public Stream<Service> load() {
+        final List<Entry> entries;
+        try {
+            entries = entries();
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't read services index " + index, e);
+        }
+        // the index is already sorted, only priority overrides can change the order
+        return entries.stream()
+                .sorted(Comparator.comparingInt(entry -> Integer.getInteger(entry.getName() + ".priority", entry.getPriority())))
+                .map(this::instantiate);
+    }
+
+    /**
+     * Read the services index.
+     *
+     * @return the index entries, in the index order.
+     * @throws IOException if the index can't be read.
+     */
+    public List<Entry> entries() throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                final String[] fields = line.split("\t", -1);
+                if (fields.length != 3) {
+                    throw new IOException("Invalid services index line: " + line);
+                }
+                final Entry entry = new Entry();
+                entry.setClassName(fields[0]);
+                entry.setPriority(Integer.parseInt(fields[1]));
+                entry.setName(fields[2]);
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private Service instantiate(final Entry entry) {
+        try {
+            return (Service) classLoader.loadClass(entry.getClassName()).getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't instantiate service " + entry.getClassName(), e);
+        }
+    }
+
+    /**
+     * Write the services index.
+     *
+     * @param services the services to index.
+     * @param writer the index writer.
+     * @throws IOException if the index can't be written.
+     */
+    public static void write(final List<Service> services, final Writer writer) throws IOException {
+        writer.write("# Minho services index: class name, priority, name\n");
+        final List<Service> sorted = services.stream().sorted(Comparator.comparingInt(Service::priority)).collect(Collectors.toList());
+        for (final Service service : sorted) {
+            writer.write(service.getClass().getName() + "\t" + service.priority() + "\t" + service.name() + "\n");
+        }
+    }
+
+    @Data
+    public static class Entry {
+
+        private String className;
+        private int priority;
+        private String name;
+
+    }
+
+}
@@ -18,19 +18,52 @@
 package org.apache.karaf.minho.boot.service;
 
 import lombok.extern.java.Log;
+import org.apache.karaf.minho.boot.config.Config;
 import org.apache.karaf.minho.boot.spi.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * Core LifeCycle service responsible of starting the registered (hooked) services.
+ * The callbacks are grouped by phases: phases are started in order (and stopped in reverse order),
+ * and the callbacks of a phase run in parallel (or in registration order with <code>lifecycle.parallel</code> set to <code>false</code>).
  */
 @Log
 public class LifeCycleService implements Service, AutoCloseable {
 
-    private List<Runnable> startCallbacks = new ArrayList<>();
-    private List<Runnable> shutdownCallbacks = new ArrayList<>();
+    public static final String INFRASTRUCTURE = "infrastructure";
+    public static final String APPLICATIONS = "applications";
+    public static final String INGRESS = "ingress";
+
+    public static final String LIFECYCLE_PHASES = "lifecycle.phases";
+    public static final String LIFECYCLE_PARALLEL = "lifecycle.parallel";
+    public static final String LIFECYCLE_START_TIMEOUT = "lifecycle.startTimeout";
+    public static final String LIFECYCLE_SHUTDOWN_TIMEOUT = "lifecycle.shutdownTimeout";
+
+    private final Map<String, List<Callback>> startCallbacks = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, List<Callback>> shutdownCallbacks = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    // shared by the start and close, the idle threads are released
+    private final ExecutorService executor = newExecutor();
+
+    private ServiceRegistry serviceRegistry;
+    // once started, new start callbacks (lazy services activated later) are called directly, with their timeout
+    private volatile boolean started;
 
     @Override
     public String name() {
@@ -42,20 +75,94 @@ public class LifeCycleService implements Service, AutoCloseable {
         return -DEFAULT_PRIORITY;
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void onRegister(final ServiceRegistry serviceRegistry) {
+        this.serviceRegistry = serviceRegistry;
+    }
+
     /**
-     * Add a start callback in the lifecycle.
+     * Add a start callback in the lifecycle ({@link #APPLICATIONS} phase).
      * @param callback The runnable start callback.
      */
     public void onStart(Runnable callback) {
-        startCallbacks.add(callback);
+        onStart(APPLICATIONS, callback);
+    }
+
+    /**
+     * Add a start callback in a lifecycle phase.
+     * @param phase The lifecycle phase.
+     * @param callback The runnable start callback.
+     */
+    public void onStart(String phase, Runnable callback) {
+        onStart(phase, callback, 0);
     }
 
     /**
-     * Add a stop callback in the lifecycle.
+     * Add a start callback in a lifecycle phase.
+     * @param phase The lifecycle phase.
+     * @param callback The runnable start callback.
+     * @param timeout The callback timeout in milliseconds (0 means the <code>lifecycle.startTimeout</code> default).
+     */
+    public void onStart(String phase, Runnable callback, long timeout) {
+        final Callback startCallback = new Callback(measured("start " + phase, callback), timeout);
+        startCallbacks.computeIfAbsent(phase, key -> new CopyOnWriteArrayList<>()).add(startCallback);
+        if (started) {
+            log.info("Lifecycle service already started, calling start callback in phase " + phase);
+            final IllegalStateException ise = new IllegalStateException("Can't start lifecycle callback in phase " + phase);
+            final long defaultTimeout = Long.parseLong(getProperty(LIFECYCLE_START_TIMEOUT, "0"));
+            if (startCallback.timeout <= 0 && defaultTimeout <= 0) {
+                // no timeout: called on the caller thread, the callback can look up the lazy service being activated
+                startCallback.runnable.run();
+            } else {
+                await(executor.submit(startCallback.runnable), phase, startCallback, defaultTimeout, 0, ise);
+            }
+            if (ise.getSuppressed().length > 0) {
+                throw ise;
+            }
+        }
+    }
+
+    /**
+     * Add a stop callback in the lifecycle ({@link #APPLICATIONS} phase).
      * @param callback The runnable stop callback.
      */
     public void onShutdown(Runnable callback) {
-        shutdownCallbacks.add(callback);
+        onShutdown(APPLICATIONS, callback);
+    }
+
+    /**
+     * Add a stop callback in a lifecycle phase.
+     * @param phase The lifecycle phase.
+     * @param callback The runnable stop callback.
+     */
+    public void onShutdown(String phase, Runnable callback) {
+        onShutdown(phase, callback, 0);
+    }
+
+    /**
+     * Add a stop callback in a lifecycle phase.
+     * @param phase The lifecycle phase.
+     * @param callback The runnable stop callback.
+     * @param timeout The callback timeout in milliseconds (0 means bounded only by the <code>lifecycle.shutdownTimeout</code> deadline).
+     */
+    public void onShutdown(String phase, Runnable callback, long timeout) {
+        shutdownCallbacks.computeIfAbsent(phase, key -> new CopyOnWriteArrayList<>()).add(new Callback(measured("shutdown " + phase, callback), timeout));
+    }
+
+    private Runnable measured(final String name, final Runnable callback) {
+        final BootReport bootReport = (serviceRegistry != null) ? serviceRegistry.getBootReport() : null;
+        if (bootReport == null) {
+            return callback;
+        }
+        // the callbacks are usually added by a service during its registration
+        final String service = bootReport.current();
+        final String step = (service != null) ? service + " " + name : name;
+        return () -> bootReport.measure(BootReport.LIFECYCLE, step, callback);
     }
 
     /**
@@ -64,16 +171,19 @@ public class LifeCycleService implements Service, AutoCloseable {
     public void start() {
         log.info("Starting lifecycle service");
         final IllegalStateException ise = new IllegalStateException("Can't start lifecycle service");
-        startCallbacks.forEach(runnable -> {
-            try {
-                runnable.run();
-            } catch (final Exception e) {
-                ise.addSuppressed(e);
+        final long timeout = Long.parseLong(getProperty(LIFECYCLE_START_TIMEOUT, "0"));
+        for (final Map.Entry<String, List<Callback>> phase : phases(startCallbacks).entrySet()) {
+            log.info("Starting lifecycle phase " + phase.getKey());
+            run(phase.getKey(), phase.getValue(), timeout, 0, ise);
+            if (ise.getSuppressed().length > 0) {
+                // don't start the next phases (ingress, ...) when a phase failed
+                break;
             }
-        });
+        }
         if (ise.getSuppressed().length > 0) {
             throw ise;
         }
+        started = true;
     }
 
     /**
@@ -82,17 +192,118 @@ public class LifeCycleService implements Service, AutoCloseable {
     @Override
     public void close() {
         log.info("Stopping lifecycle service");
+        started = false;
         final IllegalStateException ise = new IllegalStateException("Can't stop lifecycle service");
-        shutdownCallbacks.forEach(runnable -> {
-            try {
-                runnable.run();
-            } catch (final Exception e) {
-                ise.addSuppressed(e);
+        final long shutdownTimeout = Long.parseLong(getProperty(LIFECYCLE_SHUTDOWN_TIMEOUT, "0"));
+        final long deadline = (shutdownTimeout > 0) ? System.currentTimeMillis() + shutdownTimeout : 0;
+        final List<Map.Entry<String, List<Callback>>> phases = new ArrayList<>(phases(shutdownCallbacks).entrySet());
+        Collections.reverse(phases);
+        for (final Map.Entry<String, List<Callback>> phase : phases) {
+            if (deadline > 0 && System.currentTimeMillis() >= deadline) {
+                ise.addSuppressed(new TimeoutException("Lifecycle shutdown deadline exceeded, phase " + phase.getKey() + " skipped"));
+                continue;
             }
-        });
+            log.info("Stopping lifecycle phase " + phase.getKey());
+            final List<Callback> callbacks = new ArrayList<>(phase.getValue());
+            Collections.reverse(callbacks);
+            run(phase.getKey(), callbacks, 0, deadline, ise);
+        }
         if (ise.getSuppressed().length > 0) {
             throw ise;
         }
     }
 
+    private void run(final String phase, final List<Callback> callbacks, final long defaultTimeout, final long deadline, final IllegalStateException ise) {
+        // parallel by default, the callbacks expecting to be called in order use distinct phases (or lifecycle.parallel=false)
+        final boolean parallel = Boolean.parseBoolean(getProperty(LIFECYCLE_PARALLEL, "true"));
+        if (parallel) {
+            final List<Future<?>> futures = callbacks.stream().map(callback -> executor.submit(callback.runnable)).collect(Collectors.toList());
+            for (int i = 0; i < callbacks.size(); i++) {
+                await(futures.get(i), phase, callbacks.get(i), defaultTimeout, deadline, ise);
+            }
+        } else {
+            callbacks.forEach(callback -> {
+                if (callback.timeout <= 0 && defaultTimeout <= 0 && deadline <= 0) {
+                    try {
+                        callback.runnable.run();
+                    } catch (final Exception e) {
+                        ise.addSuppressed(e);
+                    }
+                } else {
+                    await(executor.submit(callback.runnable), phase, callback, defaultTimeout, deadline, ise);
+                }
+            });
+        }
+    }
+
+    private void await(final Future<?> future, final String phase, final Callback callback, final long defaultTimeout, final long deadline, final IllegalStateException ise) {
+        long timeout = (callback.timeout > 0) ? callback.timeout : defaultTimeout;
+        if (deadline > 0) {
+            final long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            timeout = (timeout > 0) ? Math.min(timeout, remaining) : remaining;
+        }
+        try {
+            if (timeout > 0 || deadline > 0) {
+                future.get(timeout, TimeUnit.MILLISECONDS);
+            } else {
+                future.get();
+            }
+        } catch (final TimeoutException e) {
+            future.cancel(true);
+            ise.addSuppressed(new TimeoutException("Lifecycle callback in phase " + phase + " timed out after " + timeout + "ms"));
+        } catch (final ExecutionException e) {
+            ise.addSuppressed(e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            ise.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Order the callbacks by phase: the phases defined by <code>lifecycle.phases</code> first, then the others in registration order.
+     */
+    private Map<String, List<Callback>> phases(final Map<String, List<Callback>> callbacks) {
+        final Map<String, List<Callback>> ordered = new LinkedHashMap<>();
+        synchronized (callbacks) {
+            Arrays.stream(getProperty(LIFECYCLE_PHASES, INFRASTRUCTURE + "," + APPLICATIONS + "," + INGRESS).split(","))
+                    .map(String::trim)
+                    .filter(callbacks::containsKey)
+                    .forEach(phase -> ordered.put(phase, callbacks.get(phase)));
+            callbacks.forEach(ordered::putIfAbsent);
+        }
+        return ordered;
+    }
+
+    private String getProperty(final String key, final String defaultValue) {
+        final Config config = (serviceRegistry != null) ? serviceRegistry.get(Config.class) : null;
+        if (config != null) {
+            return config.getProperty(key, defaultValue);
+        }
+        return System.getProperty(key, defaultValue);
+    }
+
+    private static ExecutorService newExecutor() {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 10L, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "minho-lifecycle-" + counter.incrementAndGet());
+            thread.setContextClassLoader(classLoader);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static class Callback {
+
+        private final Runnable runnable;
+        private final long timeout;
+
+        Callback(final Runnable runnable, final long timeout) {
+            this.runnable = runnable;
+            this.timeout = timeout;
+        }
+
+    }
+
 }
@@ -21,11 +21,17 @@ import lombok.extern.java.Log;
 import org.apache.karaf.minho.boot.spi.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
-import static java.util.stream.Collectors.toList;
 
 /**
  * Main service registry.
@@ -34,11 +40,33 @@ import static java.util.stream.Collectors.toList;
 public class ServiceRegistry implements AutoCloseable {
 
     private final Map<Class<?>, Service> registry = new ConcurrentHashMap<>();
+    // copy-on-write type index (any super class and interface to the services), replaced on add/remove
+    private volatile Map<Class<?>, Service[]> types = Collections.emptyMap();
+    // lazy services not yet activated (onRegister not yet called)
+    private final Map<Class<?>, LazyActivation> lazy = new ConcurrentHashMap<>();
+    // single activation lock (reentrant): lazy services looking up each other from different threads can't deadlock
+    private final Object activationLock = new Object();
+    private final BootReport bootReport = new BootReport();
 
+    /**
+     * Retrieve all services from the registry, without activating the lazy services.
+     * Use {@link #find(Predicate)} to scan the registry with the matching lazy services activated.
+     *
+     * @return the services by type.
+     */
     public Map<Class<?>, Service> getAll() {
         return registry;
     }
 
+    /**
+     * Retrieve the boot report, containing the timings of the services registration and lifecycle.
+     *
+     * @return the boot report.
+     */
+    public BootReport getBootReport() {
+        return bootReport;
+    }
+
     /**
      * Retrieve a service from the registry.
      *
@@ -47,18 +75,18 @@ public class ServiceRegistry implements AutoCloseable {
      * @return the service instance from the registry.
      */
     public <T> T get(final Class<T> serviceClass) {
-        return serviceClass.cast(ofNullable(registry.get(serviceClass)) // direct lookup, faster
-                .orElseGet(() -> { // fallback (hierarchy)
-                    final var selected = findByType(serviceClass).collect(toList());
-                    switch (selected.size()) {
-                        case 0:
-                            return null;
-                        case 1:
-                            return selected.iterator().next();
-                        default:
-                            throw new IllegalStateException("Ambiguous service lookup: " + serviceClass);
-                    }
-                }));
+        final Service service = registry.get(serviceClass); // direct lookup, faster
+        if (service != null) {
+            return serviceClass.cast(activate(service));
+        }
+        final Service[] selected = types.get(serviceClass); // fallback (hierarchy)
+        if (selected == null) {
+            return null;
+        }
+        if (selected.length == 1) {
+            return serviceClass.cast(activate(selected[0]));
+        }
+        throw new IllegalStateException("Ambiguous service lookup: " + serviceClass);
     }
 
     /**
@@ -69,7 +97,22 @@ public class ServiceRegistry implements AutoCloseable {
      * @return the instances matching the requested type.
      */
     public <T> Stream<Service> findByType(final Class<T> serviceClass) {
-        return registry.values().stream().filter(serviceClass::isInstance);
+        final Service[] selected = types.get(serviceClass);
+        if (selected == null) {
+            return Stream.empty();
+        }
+        return lazy.isEmpty() ? Arrays.stream(selected) : Arrays.stream(selected).map(this::activate);
+    }
+
+    /**
+     * Scan the registry by service class: only the matching lazy services are activated.
+     *
+     * @param filter the service class filter.
+     * @return the services matching the filter.
+     */
+    public Stream<Service> find(final Predicate<Class<?>> filter) {
+        final Stream<Service> selected = registry.values().stream().filter(service -> filter.test(service.getClass()));
+        return lazy.isEmpty() ? selected : selected.map(this::activate);
     }
 
     /**
@@ -81,14 +124,121 @@ public class ServiceRegistry implements AutoCloseable {
     public boolean add(final Service service) {
         boolean added = registry.putIfAbsent(service.getClass(), service) == null;
         if (added) {
+            if (isLazy(service)) {
+                log.info("Adding " + service.name() + " lazy service (" + service.priority() + ")");
+                lazy.put(service.getClass(), new LazyActivation(service));
+                index(service);
+                return true;
+            }
+            index(service);
             log.info("Adding " + service.name() + " service (" + service.priority() + ")");
-            try {
+            register(service);
+        }
+        return added;
+    }
+
+    private void register(final Service service) {
+        try {
+            bootReport.measure(BootReport.SERVICE, service.name(), () -> {
                 service.onRegister(this);
-            } catch (Exception e) {
-                throw new IllegalStateException("Can't register " + service.name(), e);
+                return null;
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("Can't register " + service.name(), e);
+        }
+    }
+
+    private boolean isLazy(final Service service) {
+        final String lazy = System.getProperty(service.name() + ".lazy");
+        return (lazy != null) ? Boolean.parseBoolean(lazy) : service.lazy();
+    }
+
+    private Service activate(final Service service) {
+        if (lazy.isEmpty()) {
+            return service;
+        }
+        final LazyActivation activation = lazy.get(service.getClass());
+        if (activation != null && activation.service == service) {
+            activation.activate();
+        }
+        return service;
+    }
+
+    /**
+     * Register a list of services in the registry, running independent <code>onRegister</code> concurrently.
+     * The services are expected in the loading (priority) order: a service waits for the previous services
+     * matching its {@link Service#dependencies()}, and ready services are registered in the loading order.
+     *
+     * @param services the services to add in the registry, in the loading order.
+     * @param threads the max number of services registered concurrently (1 means sequential registration).
+     */
+    public void addAll(final List<Service> services, final int threads) {
+        if (threads <= 1 || services.size() <= 1) {
+            services.forEach(this::add);
+            return;
+        }
+        log.info("Adding " + services.size() + " services using " + threads + " threads");
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger counter = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "minho-startup-" + counter.incrementAndGet());
+            thread.setContextClassLoader(classLoader);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<CompletableFuture<Void>> registrations = new ArrayList<>(services.size());
+            CompletableFuture<Void> barrier = CompletableFuture.completedFuture(null);
+            for (int index = 0; index < services.size(); index++) {
+                final Service service = services.get(index);
+                final List<Class<?>> dependencies = service.dependencies();
+                final List<CompletableFuture<Void>> waitFor = new ArrayList<>();
+                if (dependencies == null) {
+                    // unknown dependencies: wait for all previous services
+                    waitFor.addAll(registrations);
+                } else {
+                    waitFor.add(barrier);
+                    for (int previous = 0; previous < index; previous++) {
+                        final Service candidate = services.get(previous);
+                        if (dependencies.stream().anyMatch(dependency -> dependency.isInstance(candidate))) {
+                            waitFor.add(registrations.get(previous));
+                        }
+                    }
+                }
+                final CompletableFuture<Void> registration = new CompletableFuture<>();
+                final int order = index;
+                CompletableFuture.allOf(waitFor.toArray(new CompletableFuture[0])).whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        registration.completeExceptionally(error);
+                        return;
+                    }
+                    executor.execute(new StartupTask(order, () -> {
+                        try {
+                            add(service);
+                            registration.complete(null);
+                        } catch (final Throwable e) {
+                            registration.completeExceptionally(e);
+                        }
+                    }));
+                });
+                registrations.add(registration);
+                if (dependencies == null) {
+                    barrier = registration;
+                }
+            }
+            for (final CompletableFuture<Void> registration : registrations) {
+                try {
+                    registration.join();
+                } catch (final CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IllegalStateException("Can't register services", e.getCause());
+                }
             }
+        } finally {
+            executor.shutdownNow();
         }
-        return added;
     }
 
     /**
@@ -97,7 +247,46 @@ public class ServiceRegistry implements AutoCloseable {
      * @param service the service to remove.
      */
     public void remove(final Service service) {
-        registry.remove(service.getClass(), service);
+        if (registry.remove(service.getClass(), service)) {
+            lazy.remove(service.getClass());
+            unindex(service);
+        }
+    }
+
+    private synchronized void index(final Service service) {
+        final Map<Class<?>, Service[]> updated = new HashMap<>(types);
+        hierarchy(service.getClass()).forEach(type -> updated.merge(type, new Service[]{ service }, (existing, added) -> {
+            final Service[] merged = Arrays.copyOf(existing, existing.length + 1);
+            merged[existing.length] = service;
+            return merged;
+        }));
+        types = updated;
+    }
+
+    private synchronized void unindex(final Service service) {
+        final Map<Class<?>, Service[]> updated = new HashMap<>(types);
+        hierarchy(service.getClass()).forEach(type -> updated.computeIfPresent(type, (key, existing) -> {
+            final Service[] filtered = Arrays.stream(existing).filter(it -> it != service).toArray(Service[]::new);
+            return (filtered.length == 0) ? null : filtered;
+        }));
+        types = updated;
+    }
+
+    private static Set<Class<?>> hierarchy(final Class<?> type) {
+        final Set<Class<?>> hierarchy = new LinkedHashSet<>();
+        final Deque<Class<?>> toVisit = new ArrayDeque<>();
+        toVisit.add(type);
+        while (!toVisit.isEmpty()) {
+            final Class<?> current = toVisit.poll();
+            if (current == Object.class || !hierarchy.add(current)) {
+                continue;
+            }
+            if (current.getSuperclass() != null) {
+                toVisit.add(current.getSuperclass());
+            }
+            toVisit.addAll(Arrays.asList(current.getInterfaces()));
+        }
+        return hierarchy;
     }
 
     /**
@@ -108,6 +297,7 @@ public class ServiceRegistry implements AutoCloseable {
         log.info("Closing service registry");
         final IllegalStateException ise = new IllegalStateException("Can't stop service registry");
         registry.values().stream() // we should filter only for lifecycle service as others must use it
+                .filter(service -> !lazy.containsKey(service.getClass())) // never activated
                 .filter(AutoCloseable.class::isInstance)
                 .map(AutoCloseable.class::cast)
                 .forEach(service -> {
@@ -129,4 +319,65 @@ public class ServiceRegistry implements AutoCloseable {
         });
     }
 
+    /**
+     * Lazy service activation, calling the service <code>onRegister</code> only once, at first lookup.
+     */
+    private final class LazyActivation {
+
+        private final Service service;
+        private volatile boolean activated;
+        private Thread activating;
+
+        LazyActivation(final Service service) {
+            this.service = service;
+        }
+
+        void activate() {
+            if (activated) {
+                return;
+            }
+            synchronized (activationLock) {
+                if (activated || activating == Thread.currentThread()) {
+                    // already activated, or lookup from the service onRegister itself
+                    return;
+                }
+                log.info("Activating " + service.name() + " lazy service");
+                activating = Thread.currentThread();
+                try {
+                    register(service);
+                    activated = true;
+                    lazy.remove(service.getClass(), this);
+                } finally {
+                    activating = null;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Startup registration task, ordered by service loading order in the executor queue.
+     */
+    private static class StartupTask implements Runnable, Comparable<StartupTask> {
+
+        private final int order;
+        private final Runnable registration;
+
+        StartupTask(final int order, final Runnable registration) {
+            this.order = order;
+            this.registration = registration;
+        }
+
+        @Override
+        public void run() {
+            registration.run();
+        }
+
+        @Override
+        public int compareTo(final StartupTask other) {
+            return Integer.compare(order, other.order);
+        }
+
+    }
+
 }
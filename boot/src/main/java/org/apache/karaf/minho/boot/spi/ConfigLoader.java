@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.boot.spi;
+
+import org.apache.karaf.minho.boot.config.Config;
+
+/**
+ * Service loading Config from a source (JSON, properties, ...).
+ */
+public interface ConfigLoader {
+
+    /**
+     * Load the configuration embedded in the runtime (classpath resources).
+     * It's used at build time to precompile the config snapshot (see {@link org.apache.karaf.minho.boot.config.ConfigSnapshot}).
+     *
+     * @param config the target config.
+     * @return true if an embedded configuration has been loaded, false else.
+     * @throws Exception if the embedded configuration can't be loaded.
+     */
+    boolean loadEmbedded(Config config) throws Exception;
+
+}
@@ -19,6 +19,7 @@ package org.apache.karaf.minho.boot.spi;
 
 import org.apache.karaf.minho.boot.service.ServiceRegistry;
 
+import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 
@@ -59,6 +60,28 @@ public interface Service {
         return getClass().getSimpleName().toLowerCase(Locale.ROOT).replaceAll("Service", "");
     }
 
+    /**
+     * Retrieve the service types this service depends on, used by the parallel startup.
+     * A service only waits for the services loaded before it (in priority order) matching one of these types.
+     * Default is <code>null</code> (unknown dependencies): the service waits for all previous services and all next services wait for it.
+     *
+     * @return the service dependencies.
+     */
+    default List<Class<?>> dependencies() {
+        return null;
+    }
+
+    /**
+     * Define if the service is lazy: a lazy service is added in the registry, but its <code>onRegister</code> is only called
+     * the first time the service is looked up in the registry.
+     * Default is false, it can be overridden with the <code>[name].lazy</code> system property.
+     *
+     * @return true if the service is lazy, false else.
+     */
+    default boolean lazy() {
+        return false;
+    }
+
     /**
      * Add properties specific to a service that could be used by other services during lookup.
      * Default is empty properties.
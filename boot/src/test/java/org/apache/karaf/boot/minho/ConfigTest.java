@@ -17,10 +17,32 @@
  */
 package org.apache.karaf.boot.minho;
 
+import org.apache.karaf.minho.boot.config.Application;
 import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.ConfigSnapshot;
+import org.apache.karaf.minho.boot.config.ConfigWatcher;
+import org.apache.karaf.minho.boot.config.Profile;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class ConfigTest {
 
     @Test
@@ -36,4 +58,199 @@ public class ConfigTest {
         Assertions.assertNull(config.getProperty("not.defined"));
     }
 
+    @Test
+    public void changeTest() {
+        Config config = new Config();
+        config.getProperties().put("foo", "bar");
+        Assertions.assertEquals("bar", config.getProperty("foo"));
+
+        config.getProperties().put("foo", "other");
+        Assertions.assertEquals("other", config.getProperty("foo"));
+
+        config.getProperties().entrySet().iterator().next().setValue("value");
+        Assertions.assertEquals("value", config.getProperty("foo"));
+
+        config.getProperties().keySet().removeIf(key -> key.equals("foo"));
+        Assertions.assertNull(config.getProperty("foo"));
+
+        Config other = new Config();
+        other.getProperties().put("foo", "merged");
+        config.merge(other);
+        Assertions.assertEquals("merged", config.getProperty("foo"));
+
+        config.setProperties(new HashMap<>(Map.of("foo", "set")));
+        Assertions.assertEquals("set", config.getProperty("foo"));
+        config.getProperties().put("foo", "bar");
+        Assertions.assertEquals("bar", config.getProperty("foo"));
+    }
+
+    @Test
+    public void reloadTest() {
+        Config config = new Config();
+        config.getProperties().put("foo", "bar");
+        config.getProperties().put("hello", "world");
+        config.getProperties().put("removed", "value");
+
+        List<Set<String>> notifications = new ArrayList<>();
+        config.addListener((updated, keys) -> notifications.add(keys));
+
+        Set<String> changed = config.reload(Map.of("foo", "bar", "hello", "world", "removed", "value"), Map.of("foo", "other", "hello", "world", "added", "value"));
+
+        Assertions.assertEquals(Set.of("foo", "added", "removed"), changed);
+        Assertions.assertEquals(List.of(changed), notifications);
+        Assertions.assertEquals("other", config.getProperty("foo"));
+        Assertions.assertEquals("value", config.getProperty("added"));
+        Assertions.assertNull(config.getProperty("removed"));
+
+        Assertions.assertTrue(config.reload(Map.of("foo", "other"), Map.of("foo", "other")).isEmpty());
+        Assertions.assertEquals(1, notifications.size());
+    }
+
+    @Test
+    public void concurrentReloadTest() throws Exception {
+        Map<String, String> first = Map.of("foo", "first", "bar", "first");
+        Map<String, String> second = Map.of("foo", "second", "bar", "second");
+        Config config = new Config();
+        config.getProperties().putAll(first);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> lookups = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                lookups.add(executor.submit(() -> {
+                    while (running.get()) {
+                        String foo = config.getProperty("foo");
+                        Assertions.assertTrue(foo.equals("first") || foo.equals("second"), foo);
+                        config.getProperties().forEach((key, value) -> Assertions.assertNotNull(value));
+                    }
+                    return null;
+                }));
+            }
+            Future<?> reloads = executor.submit(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    if (i % 2 == 0) {
+                        config.reload(first, second);
+                    } else {
+                        config.reload(second, first);
+                    }
+                }
+                return null;
+            });
+            reloads.get(30, TimeUnit.SECONDS);
+            running.set(false);
+            for (Future<?> lookup : lookups) {
+                lookup.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals("first", config.getProperty("foo"));
+        Assertions.assertEquals("first", config.getProperty("bar"));
+    }
+
+    @Test
+    public void reloadOverriddenTest() {
+        Config config = new Config();
+        // foo loaded from the source, then overridden by another source
+        config.getProperties().put("foo", "other source");
+
+        Set<String> changed = config.reload(Map.of("foo", "bar"), Map.of());
+
+        Assertions.assertTrue(changed.isEmpty());
+        Assertions.assertEquals("other source", config.getProperty("foo"));
+    }
+
+    @Test
+    public void watchSymlinkTest() throws Exception {
+        // Kubernetes ConfigMap layout: the file is a link to ..data/file, ..data being swapped on update
+        Path directory = Files.createTempDirectory("configmap");
+        Path first = Files.createDirectory(directory.resolve("first"));
+        Path second = Files.createDirectory(directory.resolve("second"));
+        Files.writeString(first.resolve("minho.properties"), "foo=bar");
+        Files.writeString(second.resolve("minho.properties"), "foo=other");
+        Path data = Files.createSymbolicLink(directory.resolve("..data"), first.getFileName());
+        Path file = Files.createSymbolicLink(directory.resolve("minho.properties"), Path.of("..data", "minho.properties"));
+
+        CountDownLatch reloaded = new CountDownLatch(1);
+        try (ConfigWatcher watcher = new ConfigWatcher(file, 100, reloaded::countDown)) {
+            Path swap = Files.createSymbolicLink(directory.resolve("..data_tmp"), second.getFileName());
+            Files.move(swap, data, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            Assertions.assertTrue(reloaded.await(10, TimeUnit.SECONDS));
+            Assertions.assertEquals("foo=other", Files.readString(file));
+        }
+    }
+
+    @Test
+    public void snapshotTest() throws Exception {
+        Config config = new Config();
+        config.getProperties().put("foo", "bar");
+        config.getProperties().put("unicode", "h\u00e9llo");
+        Profile profile = new Profile();
+        profile.setName("profile");
+        profile.getProperties().put("foo", "bar");
+        profile.getUrls().add("/path/to/jar");
+        config.getProfiles().add(profile);
+        Application application = new Application();
+        application.setName("app");
+        application.setType("osgi");
+        application.getProperties().put("foo", "bar");
+        config.getApplications().add(application);
+
+        Path snapshot = Files.createTempFile("config", ".bin");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(snapshot)) {
+                ConfigSnapshot.write(config, outputStream);
+            }
+
+            Config loaded = new Config();
+            ConfigSnapshot.load(snapshot.toUri().toURL(), loaded);
+            Assertions.assertEquals(config, loaded);
+
+            // decoded from a buffer
+            loaded = new Config();
+            ConfigSnapshot.read(ByteBuffer.wrap(Files.readAllBytes(snapshot)), loaded);
+            Assertions.assertEquals(config, loaded);
+            Assertions.assertEquals("h\u00e9llo", loaded.getProperty("unicode"));
+            Assertions.assertNull(loaded.getApplications().get(0).getUrl());
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    @Test
+    public void envTest() {
+        Assumptions.assumeTrue(System.getenv("PATH") != null);
+
+        // only the MINHO_ prefixed environment variables override the properties
+        Config config = new Config();
+        config.getProperties().put("path", "value");
+        Assertions.assertEquals("value", config.getProperty("path"));
+    }
+
+    @Test
+    public void systemPropertyTest() {
+        Config config = new Config();
+        config.getProperties().put("config.test", "value");
+        Assertions.assertEquals("value", config.getProperty("config.test"));
+        System.setProperty("config.test", "system");
+        System.setProperty("config.test.undefined", "system");
+        try {
+            // the override of a defined property is re-read when the config changes
+            Assertions.assertEquals("value", config.getProperty("config.test"));
+            config.getProperties().put("config.other", "value");
+            Assertions.assertEquals("system", config.getProperty("config.test"));
+            // a property not defined is resolved at each lookup
+            Assertions.assertEquals("system", config.getProperty("config.test.undefined"));
+        } finally {
+            System.clearProperty("config.test");
+            System.clearProperty("config.test.undefined");
+        }
+        config.getProperties().remove("config.other");
+        Assertions.assertEquals("value", config.getProperty("config.test"));
+        Assertions.assertNull(config.getProperty("config.test.undefined"));
+    }
+
 }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.boot.minho;
+
+import org.apache.karaf.minho.boot.service.LifeCycleService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class LifeCycleServiceTest {
+
+    @Test
+    public void phasesTest() {
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(2);
+
+        LifeCycleService lifeCycleService = new LifeCycleService();
+        lifeCycleService.onStart(LifeCycleService.INGRESS, () -> events.add("start ingress"));
+        lifeCycleService.onStart(() -> {
+            latch.countDown();
+            awaitLatch(latch);
+            events.add("start application");
+        });
+        lifeCycleService.onStart(() -> {
+            latch.countDown();
+            awaitLatch(latch);
+            events.add("start application");
+        });
+        lifeCycleService.onStart(LifeCycleService.INFRASTRUCTURE, () -> events.add("start infrastructure"));
+        lifeCycleService.onShutdown(LifeCycleService.INFRASTRUCTURE, () -> events.add("stop infrastructure"));
+        lifeCycleService.onShutdown(() -> events.add("stop application"));
+        lifeCycleService.onShutdown(LifeCycleService.INGRESS, () -> events.add("stop ingress"));
+
+        lifeCycleService.start();
+        lifeCycleService.close();
+
+        Assertions.assertEquals(List.of("start infrastructure", "start application", "start application", "start ingress",
+                "stop ingress", "stop application", "stop infrastructure"), events);
+    }
+
+    @Test
+    public void sequentialTest() {
+        System.setProperty(LifeCycleService.LIFECYCLE_PARALLEL, "false");
+        List<String> events = new CopyOnWriteArrayList<>();
+
+        LifeCycleService lifeCycleService = new LifeCycleService();
+        for (int i = 0; i < 10; i++) {
+            String event = "start " + i;
+            lifeCycleService.onStart(() -> {
+                try {
+                    Thread.sleep(10 - events.size());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                events.add(event);
+            });
+        }
+        try {
+            lifeCycleService.start();
+        } finally {
+            System.clearProperty(LifeCycleService.LIFECYCLE_PARALLEL);
+        }
+
+        Assertions.assertEquals(List.of("start 0", "start 1", "start 2", "start 3", "start 4", "start 5", "start 6", "start 7", "start 8", "start 9"), events);
+    }
+
+    @Test
+    public void startTimeoutTest() {
+        List<String> events = new CopyOnWriteArrayList<>();
+
+        LifeCycleService lifeCycleService = new LifeCycleService();
+        lifeCycleService.onStart(LifeCycleService.APPLICATIONS, () -> awaitLatch(new CountDownLatch(1)), 100);
+        lifeCycleService.onStart(LifeCycleService.INGRESS, () -> events.add("start ingress"));
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, lifeCycleService::start);
+        Assertions.assertTrue(exception.getSuppressed()[0] instanceof TimeoutException);
+        Assertions.assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void shutdownDeadlineTest() {
+        System.setProperty(LifeCycleService.LIFECYCLE_SHUTDOWN_TIMEOUT, "200");
+        try {
+            List<String> events = new CopyOnWriteArrayList<>();
+
+            LifeCycleService lifeCycleService = new LifeCycleService();
+            lifeCycleService.onShutdown(LifeCycleService.INGRESS, () -> awaitLatch(new CountDownLatch(1)));
+            lifeCycleService.onShutdown(() -> events.add("stop application"));
+
+            long start = System.currentTimeMillis();
+            IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, lifeCycleService::close);
+            Assertions.assertTrue(System.currentTimeMillis() - start < 5000);
+            Assertions.assertEquals(2, exception.getSuppressed().length);
+            Assertions.assertTrue(events.isEmpty());
+        } finally {
+            System.clearProperty(LifeCycleService.LIFECYCLE_SHUTDOWN_TIMEOUT);
+        }
+    }
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -19,14 +19,31 @@ package org.apache.karaf.boot.minho;
 
 import org.apache.karaf.minho.boot.Minho;
 import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.Profile;
+import org.apache.karaf.minho.boot.service.BootReport;
+import org.apache.karaf.minho.boot.service.ClassLoaderService;
 import org.apache.karaf.minho.boot.service.ConfigService;
+import org.apache.karaf.minho.boot.service.IndexedServiceLoader;
 import org.apache.karaf.minho.boot.service.LifeCycleService;
+import org.apache.karaf.minho.boot.service.ServiceRegistry;
+import org.apache.karaf.minho.boot.spi.Service;
 import org.junit.jupiter.api.Test;
 
+import java.io.Writer;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class MinhoTest {
     @Test
@@ -51,4 +68,155 @@ class MinhoTest {
             assertEquals("world", configService.getProperty("hello"));
         }
     }
+
+    @Test
+    void bootReport() throws Exception {
+        final Path report = Files.createTempFile("boot", ".json");
+        System.setProperty("minho.boot.report", report.toString());
+        final LifeCycleService lifeCycleService = new LifeCycleService();
+        final Service service = new Service() {
+            @Override
+            public String name() {
+                return "report-service";
+            }
+
+            @Override
+            public void onRegister(ServiceRegistry serviceRegistry) {
+                serviceRegistry.get(LifeCycleService.class).onStart(() -> {
+                    // no-op
+                });
+            }
+        };
+        try (final var minho = Minho.builder()
+                .loader(() -> Stream.of(new ConfigService(), lifeCycleService, service))
+                .build()
+                .start()) {
+            final var bootReport = minho.getServiceRegistry().getBootReport();
+            assertTrue(bootReport.getStartupTime() >= 0);
+            assertTrue(bootReport.getTimings().stream().anyMatch(timing -> timing.getType().equals(BootReport.SERVICE) && timing.getName().equals("report-service")));
+            assertTrue(bootReport.getTimings().stream().anyMatch(timing -> timing.getType().equals(BootReport.LIFECYCLE) && timing.getName().equals("report-service start applications")));
+            final String json = Files.readString(report);
+            assertTrue(json.startsWith("{\"startupTime\":"));
+            assertTrue(json.contains("\"name\":\"report-service\""));
+        } finally {
+            System.clearProperty("minho.boot.report");
+            Files.deleteIfExists(report);
+        }
+    }
+
+    @Test
+    void indexedRun() throws Exception {
+        final Path index = Files.createTempFile("services", ".index");
+        try (final Writer writer = Files.newBufferedWriter(index)) {
+            IndexedServiceLoader.write(List.of(new LifeCycleService(), new ConfigService()), writer);
+        }
+
+        try (final var minho = Minho.builder()
+                .loader(new IndexedServiceLoader(index.toUri().toURL(), MinhoTest.class.getClassLoader()))
+                .build()
+                .start()) {
+            assertNotNull(minho.getServiceRegistry().get(Config.class));
+            assertNotNull(minho.getServiceRegistry().get(LifeCycleService.class));
+        } finally {
+            Files.delete(index);
+        }
+    }
+
+    @Test
+    void profileClassLoader() throws Exception {
+        // registered after the class loader service, like the config loaders
+        final Service configLoader = new Service() {
+            @Override
+            public int priority() {
+                return (-DEFAULT_PRIORITY) + 100;
+            }
+
+            @Override
+            public void onRegister(ServiceRegistry serviceRegistry) {
+                final Profile profile = new Profile();
+                profile.setName("myprofile");
+                profile.getUrls().add("target/test-classes");
+                serviceRegistry.get(Config.class).getProfiles().add(profile);
+            }
+        };
+
+        try (final var minho = Minho.builder()
+                .loader(() -> Stream.of(new ConfigService(), new ClassLoaderService(), configLoader))
+                .startupThreads(4)
+                .build()
+                .start()) {
+            final URLClassLoader classLoader = minho.getServiceRegistry().get(ClassLoaderService.class).getClassLoader("myprofile");
+            assertNotNull(classLoader);
+            assertEquals(Path.of("target/test-classes").toUri().toURL(), classLoader.getURLs()[0]);
+            assertNull(minho.getServiceRegistry().get(ClassLoaderService.class).getClassLoader("other"));
+        }
+    }
+
+    @Test
+    void parallelRun() {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final Map<String, Boolean> registered = new ConcurrentHashMap<>();
+        final Service first = new ParallelService("first", latch, registered, List.of(ConfigService.class)) {};
+        final Service second = new ParallelService("second", latch, registered, List.of(ConfigService.class)) {};
+        final Service dependent = new Service() {
+            @Override
+            public String name() {
+                return "dependent";
+            }
+
+            @Override
+            public List<Class<?>> dependencies() {
+                return List.of(ParallelService.class);
+            }
+
+            @Override
+            public void onRegister(final ServiceRegistry serviceRegistry) {
+                registered.put(name(), registered.containsKey("first") && registered.containsKey("second"));
+            }
+        };
+
+        try (final var minho = Minho.builder()
+                .startupThreads(4)
+                .loader(() -> Stream.of(new ConfigService(), first, second, dependent))
+                .build()
+                .start()) {
+            // first and second wait for each other, so they have been registered concurrently
+            assertTrue(registered.get("first"));
+            assertTrue(registered.get("second"));
+            assertTrue(registered.get("dependent"));
+        }
+    }
+
+    private static class ParallelService implements Service {
+
+        private final String name;
+        private final CountDownLatch latch;
+        private final Map<String, Boolean> registered;
+        private final List<Class<?>> dependencies;
+
+        ParallelService(final String name, final CountDownLatch latch, final Map<String, Boolean> registered, final List<Class<?>> dependencies) {
+            this.name = name;
+            this.latch = latch;
+            this.registered = registered;
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public List<Class<?>> dependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public void onRegister(final ServiceRegistry serviceRegistry) throws Exception {
+            latch.countDown();
+            registered.put(name, latch.await(10, TimeUnit.SECONDS));
+        }
+
+    }
+
 }
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.boot.minho;
+
+import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.service.ConfigService;
+import org.apache.karaf.minho.boot.service.LifeCycleService;
+import org.apache.karaf.minho.boot.service.ServiceRegistry;
+import org.apache.karaf.minho.boot.spi.Service;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class ServiceRegistryTest {
+
+    @Test
+    public void hierarchyLookup() {
+        ServiceRegistry serviceRegistry = new ServiceRegistry();
+        ConfigService configService = new ConfigService();
+        LifeCycleService lifeCycleService = new LifeCycleService();
+        serviceRegistry.add(configService);
+        serviceRegistry.add(lifeCycleService);
+
+        Assertions.assertSame(configService, serviceRegistry.get(ConfigService.class));
+        Assertions.assertSame(configService, serviceRegistry.get(Config.class));
+        Assertions.assertSame(lifeCycleService, serviceRegistry.get(AutoCloseable.class));
+        Assertions.assertNull(serviceRegistry.get(Runnable.class));
+        Assertions.assertEquals(2, serviceRegistry.findByType(Service.class).count());
+        Assertions.assertThrows(IllegalStateException.class, () -> serviceRegistry.get(Service.class));
+
+        serviceRegistry.remove(configService);
+
+        Assertions.assertNull(serviceRegistry.get(Config.class));
+        Assertions.assertSame(lifeCycleService, serviceRegistry.get(Service.class));
+        Assertions.assertEquals(1, serviceRegistry.findByType(Service.class).collect(Collectors.toList()).size());
+    }
+
+    @Test
+    public void lazyActivation() throws Exception {
+        ServiceRegistry serviceRegistry = new ServiceRegistry();
+        AtomicInteger registered = new AtomicInteger();
+        LazyService lazyService = new LazyService(registered);
+        serviceRegistry.add(lazyService);
+
+        Assertions.assertEquals(0, registered.get());
+        Assertions.assertSame(lazyService, serviceRegistry.get(LazyService.class));
+
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> serviceRegistry.get(LazyService.class));
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(1, registered.get());
+        Assertions.assertEquals(1, serviceRegistry.findByType(LazyService.class).count());
+        Assertions.assertEquals(1, registered.get());
+    }
+
+    @Test
+    public void lazyGetAll() {
+        ServiceRegistry serviceRegistry = new ServiceRegistry();
+        AtomicInteger registered = new AtomicInteger();
+        serviceRegistry.add(new LazyService(registered));
+
+        Assertions.assertEquals(0, registered.get());
+        // getAll() doesn't activate the lazy services
+        Assertions.assertEquals(1, serviceRegistry.getAll().size());
+        Assertions.assertEquals(0, registered.get());
+        // only the services matching the scan are activated
+        Assertions.assertEquals(0, serviceRegistry.find(AutoCloseable.class::isAssignableFrom).count());
+        Assertions.assertEquals(0, registered.get());
+        Assertions.assertEquals(1, serviceRegistry.find(LazyService.class::isAssignableFrom).count());
+        Assertions.assertEquals(1, registered.get());
+    }
+
+    @Test
+    public void lazyCrossLookup() throws Exception {
+        ServiceRegistry serviceRegistry = new ServiceRegistry();
+        CountDownLatch latch = new CountDownLatch(2);
+        serviceRegistry.add(new FirstLazyService(latch));
+        serviceRegistry.add(new SecondLazyService(latch));
+
+        Thread first = new Thread(() -> serviceRegistry.get(FirstLazyService.class));
+        Thread second = new Thread(() -> serviceRegistry.get(SecondLazyService.class));
+        first.start();
+        second.start();
+        first.join(10000);
+        second.join(10000);
+
+        // lazy services looking up each other from different threads don't deadlock
+        Assertions.assertFalse(first.isAlive());
+        Assertions.assertFalse(second.isAlive());
+    }
+
+    @Test
+    public void lateStartCallbackTimeout() {
+        ServiceRegistry serviceRegistry = new ServiceRegistry();
+        LifeCycleService lifeCycleService = new LifeCycleService();
+        serviceRegistry.add(lifeCycleService);
+        lifeCycleService.start();
+
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () -> lifeCycleService.onStart(LifeCycleService.APPLICATIONS, () -> {
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 100));
+        Assertions.assertTrue(exception.getSuppressed()[0] instanceof TimeoutException);
+    }
+
+    abstract static class CrossLazyService implements Service {
+
+        private final CountDownLatch latch;
+        private final Class<? extends Service> other;
+
+        CrossLazyService(CountDownLatch latch, Class<? extends Service> other) {
+            this.latch = latch;
+            this.other = other;
+        }
+
+        @Override
+        public boolean lazy() {
+            return true;
+        }
+
+        @Override
+        public void onRegister(ServiceRegistry serviceRegistry) throws Exception {
+            latch.countDown();
+            latch.await(1, TimeUnit.SECONDS);
+            serviceRegistry.get(other);
+        }
+
+    }
+
+    static class FirstLazyService extends CrossLazyService {
+
+        FirstLazyService(CountDownLatch latch) {
+            super(latch, SecondLazyService.class);
+        }
+
+    }
+
+    static class SecondLazyService extends CrossLazyService {
+
+        SecondLazyService(CountDownLatch latch) {
+            super(latch, FirstLazyService.class);
+        }
+
+    }
+
+    static class LazyService implements Service {
+
+        private final AtomicInteger registered;
+
+        LazyService(AtomicInteger registered) {
+            this.registered = registered;
+        }
+
+        @Override
+        public boolean lazy() {
+            return true;
+        }
+
+        @Override
+        public void onRegister(ServiceRegistry serviceRegistry) {
+            registered.incrementAndGet();
+        }
+
+    }
+
+}
@@ -25,6 +25,8 @@ import org.apache.karaf.minho.boot.service.LifeCycleService;
 import org.apache.karaf.minho.boot.service.ServiceRegistry;
 import org.apache.karaf.minho.boot.spi.Service;
 
+import java.util.List;
+
 @Log
 public class CamelService implements Service {
 
@@ -40,6 +42,11 @@ public class CamelService implements Service {
         return 1001;
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return List.of(LifeCycleService.class, RouteBuilder.class);
+    }
+
     @Override
     public void onRegister(ServiceRegistry serviceRegistry) {
         log.info("Creating default CamelContext");
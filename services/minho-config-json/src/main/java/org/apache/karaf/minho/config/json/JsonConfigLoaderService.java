@@ -19,20 +19,23 @@ package org.apache.karaf.minho.config.json;
 
 import lombok.extern.java.Log;
 import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.ConfigSnapshot;
+import org.apache.karaf.minho.boot.config.ConfigWatcher;
 import org.apache.karaf.minho.boot.service.ServiceRegistry;
+import org.apache.karaf.minho.boot.spi.ConfigLoader;
 import org.apache.karaf.minho.boot.spi.Service;
 
-import javax.json.bind.Jsonb;
-import javax.json.bind.JsonbBuilder;
 import java.io.*;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Load Config from a JSON file.
  */
 @Log
-public class JsonConfigLoaderService implements Service {
+public class JsonConfigLoaderService implements Service, ConfigLoader, AutoCloseable {
 
-    private Jsonb jsonb = null;
+    private ConfigWatcher watcher;
 
     @Override
     public String name() {
@@ -46,44 +49,71 @@ public class JsonConfigLoaderService implements Service {
 
     @Override
     public void onRegister(final ServiceRegistry serviceRegistry) throws Exception {
-        Config config = null;
+        final var existing = serviceRegistry.get(Config.class);
+        // parse in a fresh config and merge only once the whole document has been read
+        final Config config = new Config();
+        String file = null;
         if (System.getenv("MINHO_CONFIG") != null) {
             log.info("Loading JSON configuration from MINHO_CONFIG env variable");
-            StringReader reader = new StringReader(System.getenv("MINHO_CONFIG"));
-            config = loadJson(new StringReader(System.getenv("MINHO_CONFIG")));
+            JsonConfigParser.parse(new StringReader(System.getenv("MINHO_CONFIG")), config);
         } else if (System.getenv("MINHO_CONFIG_FILE") != null) {
-            log.info("Loading JSON configuration from " + System.getenv("MINHO_CONFIG_FILE"));
-            config = loadJson(new FileInputStream(System.getenv("MINHO_CONFIG_FILE")));
+            file = System.getenv("MINHO_CONFIG_FILE");
+            log.info("Loading JSON configuration from " + file);
+            loadJson(file, config);
         } else if (System.getProperty("minho.config") != null) {
-            log.info("Loading JSON configuration from " + System.getProperty("minho.config"));
-            config = loadJson(new FileInputStream(System.getProperty("minho.config")));
-        } else if (JsonConfigLoaderService.class.getResourceAsStream("/META-INF/minho.json") != null) {
-            log.info("Loading JSON configuration from classpath META-INF/minho.json");
-            config = loadJson(JsonConfigLoaderService.class.getResourceAsStream("/META-INF/minho.json"));
-        } else if (JsonConfigLoaderService.class.getResourceAsStream("/minho.json") != null) {
-            log.info("Loading JSON configuration from classpath minho.json");
-            config = loadJson(JsonConfigLoaderService.class.getResourceAsStream("/minho.json"));
-        } else {
+            file = System.getProperty("minho.config");
+            log.info("Loading JSON configuration from " + file);
+            loadJson(file, config);
+        } else if (ConfigSnapshot.embedded() != null) {
+            log.info("Embedded JSON configuration is provided by the configuration snapshot");
+            return;
+        } else if (!loadEmbedded(config)) {
             log.info("JSON configuration not found");
             return;
         }
-
-        final var existing = serviceRegistry.get(Config.class);
         existing.merge(config);
+
+        if (file == null || !ConfigWatcher.enabled()) {
+            return;
+        }
+        // watch: keep the loaded properties to compute the changes on reload
+        final String source = file;
+        final AtomicReference<Map<String, String>> loaded = new AtomicReference<>(config.getProperties());
+        watcher = ConfigWatcher.watch(source, () -> {
+            try {
+                Config reloaded = new Config();
+                loadJson(source, reloaded);
+                existing.reload(loaded.getAndSet(reloaded.getProperties()), reloaded.getProperties());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public boolean loadEmbedded(Config config) throws IOException {
+        for (String resource : new String[]{ "/META-INF/minho.json", "/minho.json" }) {
+            InputStream inputStream = JsonConfigLoaderService.class.getResourceAsStream(resource);
+            if (inputStream != null) {
+                log.info("Loading JSON configuration from classpath " + resource.substring(1));
+                JsonConfigParser.parse(inputStream, config);
+                return true;
+            }
+        }
+        return false;
     }
 
-    private Config loadJson(InputStream inputStream) {
-        if (jsonb == null) {
-            jsonb = JsonbBuilder.create();
+    private void loadJson(String file, Config config) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+            JsonConfigParser.parse(inputStream, config);
         }
-        return jsonb.fromJson(inputStream, Config.class);
     }
 
-    private Config loadJson(Reader reader) {
-        if (jsonb == null) {
-            jsonb = JsonbBuilder.create();
+    @Override
+    public void close() throws Exception {
+        if (watcher != null) {
+            watcher.close();
         }
-        return jsonb.fromJson(reader, Config.class);
     }
 
 }
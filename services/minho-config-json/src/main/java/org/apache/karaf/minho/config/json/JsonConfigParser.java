@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.config.json;
+
+import org.apache.karaf.minho.boot.config.Application;
+import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.Profile;
+
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Streaming (JSON-P) Config parser, building the properties, profiles and applications incrementally
+ * without binding the whole document.
+ */
+public final class JsonConfigParser {
+
+    // parser factory is thread safe, shared by all parsers
+    private static final JsonParserFactory FACTORY = Json.createParserFactory(Collections.emptyMap());
+
+    private JsonConfigParser() {
+        // utility class
+    }
+
+    /**
+     * Parse a JSON config, adding properties, profiles and applications to the target config.
+     *
+     * @param inputStream the JSON config stream.
+     * @param config the target config.
+     */
+    public static void parse(final InputStream inputStream, final Config config) {
+        try (JsonParser parser = FACTORY.createParser(inputStream)) {
+            parse(parser, config);
+        }
+    }
+
+    /**
+     * Parse a JSON config, adding properties, profiles and applications to the target config.
+     *
+     * @param reader the JSON config reader.
+     * @param config the target config.
+     */
+    public static void parse(final Reader reader, final Config config) {
+        try (JsonParser parser = FACTORY.createParser(reader)) {
+            parse(parser, config);
+        }
+    }
+
+    private static void parse(final JsonParser parser, final Config config) {
+        expect(parser, JsonParser.Event.START_OBJECT);
+        while (nextKey(parser)) {
+            switch (parser.getString()) {
+                case "properties":
+                    readMap(parser, config.getProperties());
+                    break;
+                case "profiles":
+                    expect(parser, JsonParser.Event.START_ARRAY);
+                    while (nextElement(parser)) {
+                        config.getProfiles().add(readProfile(parser));
+                    }
+                    break;
+                case "applications":
+                    expect(parser, JsonParser.Event.START_ARRAY);
+                    while (nextElement(parser)) {
+                        config.getApplications().add(readApplication(parser));
+                    }
+                    break;
+                default:
+                    skip(parser);
+            }
+        }
+    }
+
+    private static Profile readProfile(final JsonParser parser) {
+        final Profile profile = new Profile();
+        while (nextKey(parser)) {
+            switch (parser.getString()) {
+                case "name":
+                    profile.setName(readValue(parser));
+                    break;
+                case "properties":
+                    readMap(parser, profile.getProperties());
+                    break;
+                case "urls":
+                    expect(parser, JsonParser.Event.START_ARRAY);
+                    JsonParser.Event event;
+                    while ((event = parser.next()) != JsonParser.Event.END_ARRAY) {
+                        profile.getUrls().add(value(parser, event));
+                    }
+                    break;
+                default:
+                    skip(parser);
+            }
+        }
+        return profile;
+    }
+
+    private static Application readApplication(final JsonParser parser) {
+        final Application application = new Application();
+        while (nextKey(parser)) {
+            switch (parser.getString()) {
+                case "name":
+                    application.setName(readValue(parser));
+                    break;
+                case "version":
+                    application.setVersion(readValue(parser));
+                    break;
+                case "url":
+                    application.setUrl(readValue(parser));
+                    break;
+                case "type":
+                    application.setType(readValue(parser));
+                    break;
+                case "profile":
+                    application.setProfile(readValue(parser));
+                    break;
+                case "properties":
+                    readMap(parser, application.getProperties());
+                    break;
+                default:
+                    skip(parser);
+            }
+        }
+        return application;
+    }
+
+    private static void readMap(final JsonParser parser, final Map<String, String> map) {
+        final JsonParser.Event event = parser.next();
+        if (event == JsonParser.Event.VALUE_NULL) {
+            return;
+        }
+        if (event != JsonParser.Event.START_OBJECT) {
+            throw new IllegalStateException("Expected JSON object but got " + event + " at " + parser.getLocation());
+        }
+        while (nextKey(parser)) {
+            final String key = parser.getString();
+            final String value = readValue(parser);
+            if (value != null) {
+                map.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Move to the next key of the current object.
+     *
+     * @return true if the parser is on a key, false at the end of the object.
+     */
+    private static boolean nextKey(final JsonParser parser) {
+        final JsonParser.Event event = parser.next();
+        if (event == JsonParser.Event.END_OBJECT) {
+            return false;
+        }
+        if (event != JsonParser.Event.KEY_NAME) {
+            throw new IllegalStateException("Expected JSON key but got " + event + " at " + parser.getLocation());
+        }
+        return true;
+    }
+
+    /**
+     * Move to the next object element of the current array.
+     *
+     * @return true if the parser is on an object start, false at the end of the array.
+     */
+    private static boolean nextElement(final JsonParser parser) {
+        final JsonParser.Event event = parser.next();
+        if (event == JsonParser.Event.END_ARRAY) {
+            return false;
+        }
+        if (event != JsonParser.Event.START_OBJECT) {
+            throw new IllegalStateException("Expected JSON object but got " + event + " at " + parser.getLocation());
+        }
+        return true;
+    }
+
+    private static String readValue(final JsonParser parser) {
+        return value(parser, parser.next());
+    }
+
+    private static String value(final JsonParser parser, final JsonParser.Event event) {
+        switch (event) {
+            case VALUE_STRING:
+            case VALUE_NUMBER:
+                return parser.getString();
+            case VALUE_TRUE:
+                return "true";
+            case VALUE_FALSE:
+                return "false";
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new IllegalStateException("Expected JSON value but got " + event + " at " + parser.getLocation());
+        }
+    }
+
+    private static void skip(final JsonParser parser) {
+        final JsonParser.Event event = parser.next();
+        if (event == JsonParser.Event.START_OBJECT) {
+            parser.skipObject();
+        } else if (event == JsonParser.Event.START_ARRAY) {
+            parser.skipArray();
+        }
+    }
+
+    private static void expect(final JsonParser parser, final JsonParser.Event expected) {
+        final JsonParser.Event event = parser.next();
+        if (event != expected) {
+            throw new IllegalStateException("Expected " + expected + " but got " + event + " at " + parser.getLocation());
+        }
+    }
+
+}
@@ -25,6 +25,10 @@ import org.apache.karaf.minho.boot.service.ServiceRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class JsonConfigLoaderServiceTest {
 
     @Test
@@ -46,6 +50,28 @@ public class JsonConfigLoaderServiceTest {
         System.clearProperty("minho.config");
     }
 
+    @Test
+    public void malformedTest() throws Exception {
+        Path file = Files.createTempFile("minho", ".json");
+        Files.writeString(file, "{ \"properties\": { \"foo\": \"bar\" }, \"applications\": [ { \"name\": ");
+        System.setProperty("minho.config", file.toString());
+        try {
+            ServiceRegistry serviceRegistry = new ServiceRegistry();
+            ConfigService configService = new ConfigService();
+            serviceRegistry.add(configService);
+            JsonConfigLoaderService service = new JsonConfigLoaderService();
+
+            Assertions.assertThrows(Exception.class, () -> service.onRegister(serviceRegistry));
+
+            Config config = serviceRegistry.get(ConfigService.class);
+            Assertions.assertNull(config.getProperty("foo"));
+            Assertions.assertEquals(0, config.getApplications().size());
+        } finally {
+            System.clearProperty("minho.config");
+            Files.delete(file);
+        }
+    }
+
     @Test
     public void loadingTestFromClasspath() throws Exception {
         ServiceRegistry serviceRegistry = new ServiceRegistry();
@@ -75,6 +101,27 @@ public class JsonConfigLoaderServiceTest {
         Assertions.assertTrue(Boolean.parseBoolean(springBootApp.getProperty("enablePrometheus")));
     }
 
+    @Test
+    public void parserTest() {
+        Config config = new Config();
+        config.getProperties().put("existing", "value");
+
+        JsonConfigParser.parse(new StringReader("{ \"unknown\": { \"nested\": [ 1, 2 ] }, \"properties\": { \"foo\": \"bar\", \"port\": 8080, \"enabled\": true, \"none\": null }, "
+                + "\"profiles\": [ { \"name\": \"test\", \"urls\": [ \"/path/to/jar\" ] } ], "
+                + "\"applications\": [ { \"name\": \"app\", \"type\": \"osgi\", \"properties\": { \"foo\": \"bar\" } } ] }"), config);
+
+        Assertions.assertEquals("value", config.getProperty("existing"));
+        Assertions.assertEquals("bar", config.getProperty("foo"));
+        Assertions.assertEquals("8080", config.getProperty("port"));
+        Assertions.assertEquals("true", config.getProperty("enabled"));
+        Assertions.assertFalse(config.getProperties().containsKey("none"));
+        Assertions.assertEquals(1, config.getProfiles().size());
+        Assertions.assertEquals("/path/to/jar", config.getProfiles().get(0).getUrls().get(0));
+        Assertions.assertEquals(1, config.getApplications().size());
+        Assertions.assertEquals("osgi", config.getApplications().get(0).getType());
+        Assertions.assertEquals("bar", config.getApplications().get(0).getProperty("foo"));
+    }
+
     @Test
     public void runTest() throws Exception {
         Minho minho = Minho.builder().build();
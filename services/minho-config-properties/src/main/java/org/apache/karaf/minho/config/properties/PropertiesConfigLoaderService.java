@@ -20,21 +20,33 @@ package org.apache.karaf.minho.config.properties;
 import lombok.extern.java.Log;
 import org.apache.karaf.minho.boot.config.Application;
 import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.ConfigSnapshot;
+import org.apache.karaf.minho.boot.config.ConfigWatcher;
+import org.apache.karaf.minho.boot.config.Profile;
 import org.apache.karaf.minho.boot.service.ServiceRegistry;
+import org.apache.karaf.minho.boot.spi.ConfigLoader;
 import org.apache.karaf.minho.boot.spi.Service;
 
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Load Config from a properties.
  */
 @Log
-public class PropertiesConfigLoaderService implements Service {
+public class PropertiesConfigLoaderService implements Service, ConfigLoader, AutoCloseable {
+
+    private static final String APPLICATION_PREFIX = "application.";
+    private static final String PROFILE_PREFIX = "profile.";
+
+    private ConfigWatcher watcher;
 
     @Override
     public String name() {
@@ -49,60 +61,151 @@ public class PropertiesConfigLoaderService implements Service {
     @Override
     public void onRegister(final ServiceRegistry serviceRegistry) throws Exception {
         Properties properties = new Properties();
+        String file = null;
         if (System.getenv("MINHO_CONFIG") != null) {
             log.info("Loading properties from MINHO_CONFIG env variable");
             properties.load(new StringReader(System.getenv("MINHO_CONFIG")));
         } else if (System.getenv("MINHO_CONFIG_FILE") != null) {
-            log.info("Loading configuration from " + System.getenv("MINHO_CONFIG_FILE"));
-            properties.load(new FileInputStream(System.getenv("MINHO_CONFIG_FILE")));
+            file = System.getenv("MINHO_CONFIG_FILE");
+            log.info("Loading configuration from " + file);
+            properties = load(file);
         } else if (System.getProperty("minho.config") != null) {
-            log.info("Loading configuration from " + System.getProperty("minho.config"));
-            properties.load(new FileInputStream(System.getProperty("minho.config")));
-        } else if (PropertiesConfigLoaderService.class.getResourceAsStream("/META-INF/minho.properties") != null) {
-            log.info("Loading configuration from classpath META-INF/minho.properties");
-            properties.load(PropertiesConfigLoaderService.class.getResourceAsStream("/META-INF/minho.properties"));
-        } else if (PropertiesConfigLoaderService.class.getResourceAsStream("/minho.properties") != null) {
-            log.info("Loading configuration from classpath minho.properties");
-            properties.load(PropertiesConfigLoaderService.class.getResourceAsStream("/minho.properties"));
+            file = System.getProperty("minho.config");
+            log.info("Loading configuration from " + file);
+            properties = load(file);
+        } else if (ConfigSnapshot.embedded() != null) {
+            log.info("Embedded configuration is provided by the configuration snapshot");
+            return;
+        } else {
+            loadEmbedded(serviceRegistry.get(Config.class));
+            return;
         }
         Config config = parse(properties);
         final var existing = serviceRegistry.get(Config.class);
         existing.merge(config);
+
+        if (file != null) {
+            final String source = file;
+            final AtomicReference<Map<String, String>> loaded = new AtomicReference<>(config.getProperties());
+            watcher = ConfigWatcher.watch(source, () -> {
+                try {
+                    Map<String, String> reloaded = parse(load(source)).getProperties();
+                    existing.reload(loaded.getAndSet(reloaded), reloaded);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean loadEmbedded(final Config config) throws IOException {
+        for (String resource : new String[]{ "/META-INF/minho.properties", "/minho.properties" }) {
+            try (InputStream inputStream = PropertiesConfigLoaderService.class.getResourceAsStream(resource)) {
+                if (inputStream != null) {
+                    log.info("Loading configuration from classpath " + resource.substring(1));
+                    Properties properties = new Properties();
+                    properties.load(inputStream);
+                    config.merge(parse(properties));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Properties load(final String file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            properties.load(inputStream);
+        }
+        return properties;
     }
 
-    private Config parse(final Properties properties) {
+    @Override
+    public void close() throws Exception {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * Parse properties as Config, in a single pass on the keys:
+     * <ul>
+     *     <li><code>application.[name].[type|url|profile|version]</code> define the application (<code>profiles</code> being accepted as legacy <code>profile</code> key), other <code>application.[name].*</code> keys are the application properties</li>
+     *     <li><code>profile.[name].urls</code> (comma separated) define the profile URLs, other <code>profile.[name].*</code> keys are the profile properties</li>
+     *     <li>any other key is a config property</li>
+     * </ul>
+     * <code>application.</code> and <code>profile.</code> are reserved prefixes: a <code>profile.[name].[key]</code> key is a profile property, never a config property.
+     *
+     * @param properties the properties to parse.
+     * @return the corresponding Config.
+     */
+    public Config parse(final Properties properties) {
         Config config = new Config();
+        // name -> application/profile index
+        Map<String, Application> applications = new HashMap<>();
+        Map<String, Profile> profiles = new HashMap<>();
 
-        properties.keySet().stream().filter(key -> !((String) key).startsWith("application."))
-                .forEach(key -> {
-                    config.getProperties().put(((String) key), properties.get(key).toString());
-                });
-
-        List<Object> applicationKeys = properties.keySet().stream().filter(key -> ((String) key).startsWith("application."))
-                .collect(Collectors.toList());
-        Map<Object, List<Object>> groupBy = applicationKeys.stream()
-                .collect(Collectors.groupingBy(key -> {
-                    String local = ((String) key).substring("application.".length());
-                    return local.substring(0, local.indexOf("."));
-                }));
-        groupBy.entrySet().forEach(entry -> {
-            Application application = new Application();
-            String appName = (String) entry.getKey();
-            entry.getValue().forEach(value -> {
-                if (value.equals("application." + appName + ".type")) {
-                    application.setType((String) properties.get(value));
-                } else if (value.equals("application." + appName + ".url")) {
-                    application.setUrl((String) properties.get(value));
-                } else if (value.equals("application." + appName + ".profile")) {
-                    application.setProfile((String) properties.get(value));
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            String key = entry.getKey().toString();
+            String value = entry.getValue().toString();
+            int separator;
+            if (key.startsWith(APPLICATION_PREFIX) && (separator = key.indexOf('.', APPLICATION_PREFIX.length())) > APPLICATION_PREFIX.length()) {
+                String name = key.substring(APPLICATION_PREFIX.length(), separator);
+                String attribute = key.substring(separator + 1);
+                Application application = applications.computeIfAbsent(name, this::application);
+                switch (attribute) {
+                    case "type":
+                        application.setType(value);
+                        break;
+                    case "url":
+                        application.setUrl(value);
+                        break;
+                    case "profile":
+                    case "profiles":
+                        // profiles is the legacy key
+                        application.setProfile(value);
+                        break;
+                    case "version":
+                        application.setVersion(value);
+                        break;
+                    default:
+                        application.getProperties().put(attribute, value);
+                }
+            } else if (key.startsWith(PROFILE_PREFIX) && (separator = key.indexOf('.', PROFILE_PREFIX.length())) > PROFILE_PREFIX.length()) {
+                String name = key.substring(PROFILE_PREFIX.length(), separator);
+                String attribute = key.substring(separator + 1);
+                Profile profile = profiles.computeIfAbsent(name, this::profile);
+                if (attribute.equals("urls")) {
+                    for (String url : value.split(",")) {
+                        if (!url.isBlank()) {
+                            profile.getUrls().add(url.trim());
+                        }
+                    }
                 } else {
-                    application.getProperties().put(((String) value).substring(("application." + appName).length() + 1), properties.get(value).toString());
+                    profile.getProperties().put(attribute, value);
                 }
-            });
-            config.getApplications().add(application);
-        });
+            } else {
+                config.getProperties().put(key, value);
+            }
+        }
 
+        config.getProfiles().addAll(profiles.values());
+        config.getApplications().addAll(applications.values());
         return config;
     }
 
+    private Application application(String name) {
+        Application application = new Application();
+        application.setName(name);
+        return application;
+    }
+
+    private Profile profile(String name) {
+        Profile profile = new Profile();
+        profile.setName(name);
+        return profile;
+    }
+
 }
@@ -20,11 +20,24 @@ package org.apache.karaf.minho.config.properties;
 import org.apache.karaf.minho.boot.Minho;
 import org.apache.karaf.minho.boot.config.Application;
 import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.ConfigSnapshot;
+import org.apache.karaf.minho.boot.config.Profile;
 import org.apache.karaf.minho.boot.service.ConfigService;
+import org.apache.karaf.minho.boot.service.ConfigSnapshotLoaderService;
 import org.apache.karaf.minho.boot.service.ServiceRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class PropertiesConfigLoaderServiceTest {
 
     @Test
@@ -73,6 +86,120 @@ public class PropertiesConfigLoaderServiceTest {
         Assertions.assertEquals("true", springBootApp.getProperty("enablePrometheus"));
     }
 
+    @Test
+    public void parseTest() {
+        Properties properties = new Properties();
+        properties.setProperty("foo", "bar");
+        properties.setProperty("profile.myprofile.urls", "/path/to/jar/file.jar, /path/to/folder");
+        properties.setProperty("profile.myprofile.foo", "bar");
+        properties.setProperty("application.app1.url", "/path/to/app/spring-boot.jar");
+        properties.setProperty("application.app1.type", "spring-boot");
+        properties.setProperty("application.app1.version", "1.0");
+        properties.setProperty("application.app1.profile", "myprofile");
+        properties.setProperty("application.app1.enableHttp", "true");
+        // legacy key
+        properties.setProperty("application.app2.profiles", "myprofile");
+
+        Config config = new PropertiesConfigLoaderService().parse(properties);
+
+        Assertions.assertEquals("bar", config.getProperty("foo"));
+        Assertions.assertNull(config.getProperty("profile.myprofile.foo"));
+
+        Assertions.assertEquals(1, config.getProfiles().size());
+        Profile profile = config.getProfiles().get(0);
+        Assertions.assertEquals("myprofile", profile.getName());
+        Assertions.assertEquals(List.of("/path/to/jar/file.jar", "/path/to/folder"), profile.getUrls());
+        Assertions.assertEquals("bar", profile.getProperty("foo"));
+
+        Assertions.assertEquals(2, config.getApplications().size());
+        Application springBootApp = config.getApplications().stream().filter(application -> application.getName().equals("app1")).findFirst().get();
+        Assertions.assertEquals("/path/to/app/spring-boot.jar", springBootApp.getUrl());
+        Assertions.assertEquals("spring-boot", springBootApp.getType());
+        Assertions.assertEquals("1.0", springBootApp.getVersion());
+        Assertions.assertEquals("myprofile", springBootApp.getProfile());
+        Assertions.assertEquals("true", springBootApp.getProperty("enableHttp"));
+        Application legacyApp = config.getApplications().stream().filter(application -> application.getName().equals("app2")).findFirst().get();
+        Assertions.assertEquals("myprofile", legacyApp.getProfile());
+        Assertions.assertNull(legacyApp.getProperty("profiles"));
+    }
+
+    @Test
+    public void watchTest() throws Exception {
+        Path file = Files.createTempFile("minho", ".properties");
+        Files.writeString(file, "foo=bar\nhello=world\n");
+        System.setProperty("minho.config", file.toString());
+        System.setProperty("minho.config.watch", "true");
+        System.setProperty("minho.config.watch.debounce", "100");
+
+        ServiceRegistry serviceRegistry = new ServiceRegistry();
+        ConfigService configService = new ConfigService();
+        serviceRegistry.add(configService);
+        PropertiesConfigLoaderService service = new PropertiesConfigLoaderService();
+        try {
+            service.onRegister(serviceRegistry);
+            Assertions.assertEquals("bar", configService.getProperty("foo"));
+
+            AtomicReference<Set<String>> changed = new AtomicReference<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            configService.addListener((config, keys) -> {
+                changed.set(keys);
+                latch.countDown();
+            });
+
+            Files.writeString(file, "foo=other\nhello=world\nnew=value\n");
+
+            Assertions.assertTrue(latch.await(30, TimeUnit.SECONDS));
+            Assertions.assertEquals(Set.of("foo", "new"), changed.get());
+            Assertions.assertEquals("other", configService.getProperty("foo"));
+            Assertions.assertEquals("value", configService.getProperty("new"));
+        } finally {
+            service.close();
+            System.clearProperty("minho.config");
+            System.clearProperty("minho.config.watch");
+            System.clearProperty("minho.config.watch.debounce");
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void snapshotTest() throws Exception {
+        Config embedded = new Config();
+        embedded.getProperties().put("foo", "snapshot");
+        Application application = new Application();
+        application.setName("embedded");
+        embedded.getApplications().add(application);
+        Path snapshot = Path.of("target/test-classes").resolve(ConfigSnapshot.LOCATION);
+        Files.createDirectories(snapshot.getParent());
+        try (OutputStream outputStream = Files.newOutputStream(snapshot)) {
+            ConfigSnapshot.write(embedded, outputStream);
+        }
+        try {
+            // the runtime config replaces the snapshot
+            System.setProperty("minho.config", "target/test-classes/simple.properties");
+            ServiceRegistry serviceRegistry = new ServiceRegistry();
+            serviceRegistry.add(new ConfigService());
+            new ConfigSnapshotLoaderService().onRegister(serviceRegistry);
+            new PropertiesConfigLoaderService().onRegister(serviceRegistry);
+            Config config = serviceRegistry.get(Config.class);
+            Assertions.assertEquals("bar", config.getProperty("foo"));
+            Assertions.assertEquals(0, config.getApplications().size());
+            System.clearProperty("minho.config");
+
+            // the snapshot replaces the classpath config
+            serviceRegistry = new ServiceRegistry();
+            serviceRegistry.add(new ConfigService());
+            new ConfigSnapshotLoaderService().onRegister(serviceRegistry);
+            new PropertiesConfigLoaderService().onRegister(serviceRegistry);
+            config = serviceRegistry.get(Config.class);
+            Assertions.assertEquals("snapshot", config.getProperty("foo"));
+            Assertions.assertEquals(1, config.getApplications().size());
+            Assertions.assertEquals("embedded", config.getApplications().get(0).getName());
+        } finally {
+            System.clearProperty("minho.config");
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
     @Test
     public void runTest() throws Exception {
         Minho minho = Minho.builder().build();
@@ -25,6 +25,7 @@ import org.apache.karaf.minho.boot.spi.Service;
 import java.net.URL;
 import java.nio.file.*;
 import java.util.Collections;
+import java.util.List;
 
 @Log
 public class ExtractorService implements Service {
@@ -34,6 +35,11 @@ public class ExtractorService implements Service {
         return "minho-extractor-service";
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return List.of(Config.class);
+    }
+
     @Override
     public void onRegister(ServiceRegistry serviceRegistry) throws Exception {
         log.info("Starting extractor service");
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit of a route (path prefix).
+ * The limit is fixed, or adaptive (AIMD): the limit increases by one when a request completes under the latency
+ * threshold with the limit in use, and decreases multiplicatively (at most once per latency threshold period) when
+ * a request is slower than the latency threshold.
+ */
+public class ConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final String path;
+    private final int minLimit;
+    private final int maxLimit;
+    private final boolean adaptive;
+    private final long latencyThreshold;
+    private final int retryAfter;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong lastDecrease;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    /**
+     * Create a concurrency limit.
+     *
+     * @param name the limit name.
+     * @param path the route path (<code>/api/*</code> or <code>/api</code> matching any path starting with <code>/api</code>).
+     * @param minLimit the min limit (adaptive limit).
+     * @param maxLimit the max limit (the fixed limit when not adaptive).
+     * @param adaptive true for an adaptive limit, false for a fixed limit.
+     * @param latencyThreshold the latency threshold (adaptive limit), in milliseconds.
+     * @param retryAfter the <code>Retry-After</code> value (in seconds) of the rejected requests.
+     */
+    public ConcurrencyLimit(String name, String path, int minLimit, int maxLimit, boolean adaptive, long latencyThreshold, int retryAfter) {
+        if (maxLimit <= 0 || minLimit <= 0 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid " + name + " concurrency limit: " + minLimit + "-" + maxLimit);
+        }
+        this.name = name;
+        this.path = path.endsWith("/*") ? path.substring(0, path.length() - 2) : path;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.adaptive = adaptive;
+        this.latencyThreshold = TimeUnit.MILLISECONDS.toNanos(latencyThreshold);
+        this.retryAfter = retryAfter;
+        this.limit = new AtomicInteger(adaptive ? minLimit : maxLimit);
+        this.lastDecrease = new AtomicLong(System.nanoTime() - this.latencyThreshold);
+    }
+
+    /**
+     * @param requestPath the request path in the context.
+     * @return true if the request path matches the route path.
+     */
+    public boolean matches(String requestPath) {
+        return requestPath.startsWith(path) && (requestPath.length() == path.length() || path.endsWith("/") || requestPath.charAt(path.length()) == '/');
+    }
+
+    /**
+     * Try to acquire a slot for a request.
+     *
+     * @return true if the request is accepted, false if the limit is reached (the request must be rejected).
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                shed.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release the slot of a completed request, updating the adaptive limit.
+     *
+     * @param latency the request latency, in nanoseconds.
+     */
+    public void release(long latency) {
+        int current = inFlight.getAndDecrement();
+        if (!adaptive) {
+            return;
+        }
+        if (latency > latencyThreshold) {
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            if (now - last >= latencyThreshold && lastDecrease.compareAndSet(last, now)) {
+                limit.updateAndGet(value -> Math.max(minLimit, (int) (value * BACKOFF_RATIO)));
+            }
+        } else if (current * 2 >= limit.get()) {
+            // only grow when the limit is actually used
+            limit.updateAndGet(value -> Math.min(maxLimit, value + 1));
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return the current limit.
+     */
+    public int getLimit() {
+        return limit.get();
+    }
+
+    /**
+     * @return the number of requests currently handled.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the number of accepted requests.
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * @return the number of rejected (shed) requests.
+     */
+    public long getShed() {
+        return shed.sum();
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Apply the routes concurrency limits: the requests exceeding the limit of their route are rejected with a 503 status
+ * and a <code>Retry-After</code> header, before reaching the servlets. The rejected requests are already dispatched on a
+ * HTTP thread, but release it immediately instead of waiting for the route.
+ * The routes are matched on the normalized (decoded) request path in the context.
+ */
+public class ConcurrencyLimitHandler extends HandlerWrapper {
+
+    private final List<ConcurrencyLimit> limits;
+
+    public ConcurrencyLimitHandler(List<ConcurrencyLimit> limits) {
+        // longest path first
+        this.limits = limits.stream().sorted(Comparator.comparingInt((ConcurrencyLimit limit) -> limit.getPath().length()).reversed()).collect(Collectors.toList());
+    }
+
+    public List<ConcurrencyLimit> getLimits() {
+        return limits;
+    }
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        ConcurrencyLimit limit = (baseRequest.getDispatcherType() == DispatcherType.REQUEST) ? match(baseRequest.getPathInContext()) : null;
+        if (limit == null) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            baseRequest.setHandled(true);
+            response.setHeader(HttpHeader.RETRY_AFTER.asString(), String.valueOf(limit.getRetryAfter()));
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            super.handle(target, baseRequest, request, response);
+            async = RequestCompletion.onAsyncComplete(request, () -> limit.release(System.nanoTime() - start));
+        } finally {
+            if (!async) {
+                limit.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private ConcurrencyLimit match(String path) {
+        for (ConcurrencyLimit limit : limits) {
+            if (limit.matches(path)) {
+                return limit;
+            }
+        }
+        return null;
+    }
+
+}
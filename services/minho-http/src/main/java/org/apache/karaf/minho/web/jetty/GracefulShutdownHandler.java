@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpHeaderValue;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Track the in-flight requests to drain them on shutdown.
+ * Once shutting down, new requests are rejected (503 with <code>Connection: close</code>),
+ * and the in-flight requests responses close their connection.
+ */
+public class GracefulShutdownHandler extends HandlerWrapper {
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder drained = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean shuttingDown;
+    private int inFlight;
+
+    @Override
+    public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+        if (baseRequest.getDispatcherType() != DispatcherType.REQUEST) {
+            // async dispatch of a request already tracked
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+        if (shuttingDown) {
+            rejected.increment();
+            baseRequest.setHandled(true);
+            response.setHeader(HttpHeader.CONNECTION.asString(), HttpHeaderValue.CLOSE.asString());
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        active.incrementAndGet();
+        boolean async = false;
+        try {
+            super.handle(target, baseRequest, request, response);
+            async = RequestCompletion.onAsyncComplete(request, this::complete);
+        } finally {
+            if (!async) {
+                if (shuttingDown && !response.isCommitted()) {
+                    response.setHeader(HttpHeader.CONNECTION.asString(), HttpHeaderValue.CLOSE.asString());
+                }
+                complete();
+            }
+        }
+    }
+
+    private void complete() {
+        int remaining = active.decrementAndGet();
+        if (shuttingDown) {
+            drained.increment();
+            if (remaining == 0) {
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Start the shutdown: new requests are rejected.
+     */
+    public synchronized void shutdown() {
+        if (!shuttingDown) {
+            inFlight = active.get();
+            shuttingDown = true;
+        }
+    }
+
+    /**
+     * Reset the handler (accepting new requests), when the server is restarted.
+     */
+    public synchronized void reset() {
+        shuttingDown = false;
+        inFlight = 0;
+        drained.reset();
+        rejected.reset();
+    }
+
+    /**
+     * Wait for the in-flight requests to complete.
+     *
+     * @param timeout the max time to wait, in milliseconds.
+     * @return true if all in-flight requests completed, false if the timeout has been reached.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public synchronized boolean awaitDrained(long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (active.get() > 0) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the handler is shutting down (rejecting new requests).
+     */
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    /**
+     * @return the number of requests currently handled.
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    /**
+     * @return the number of requests in-flight when the shutdown started.
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return the number of in-flight requests completed during the shutdown.
+     */
+    public long getDrained() {
+        return drained.sum();
+    }
+
+    /**
+     * @return the number of requests rejected during the shutdown.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+import org.eclipse.jetty.io.ConnectionStatistics;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.StatisticsHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+/**
+ * HTTP metrics, reading the Jetty statistics handler, latency histogram, thread pool and connectors statistics.
+ */
+public class HttpMetrics implements HttpMetricsMBean {
+
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4";
+
+    private final Server server;
+    private final StatisticsHandler statistics;
+    private final LatencyHistogram latency;
+    private final QueuedThreadPool threadPool;
+    private final VirtualThreadPinningMonitor pinningMonitor;
+    private final List<ConcurrencyLimit> limits;
+
+    public HttpMetrics(Server server, StatisticsHandler statistics, LatencyHistogram latency, QueuedThreadPool threadPool, VirtualThreadPinningMonitor pinningMonitor, List<ConcurrencyLimit> limits) {
+        this.server = server;
+        this.statistics = statistics;
+        this.latency = latency;
+        this.threadPool = threadPool;
+        this.pinningMonitor = pinningMonitor;
+        this.limits = limits;
+    }
+
+    @Override
+    public int getRequests() {
+        return statistics.getRequests();
+    }
+
+    @Override
+    public int getRequestsActive() {
+        return statistics.getRequestsActive();
+    }
+
+    @Override
+    public int getRequestsActiveMax() {
+        return statistics.getRequestsActiveMax();
+    }
+
+    @Override
+    public double getRequestTimeMean() {
+        return statistics.getRequestTimeMean();
+    }
+
+    @Override
+    public long getRequestTimeMax() {
+        return statistics.getRequestTimeMax();
+    }
+
+    @Override
+    public int getResponses4xx() {
+        return statistics.getResponses4xx();
+    }
+
+    @Override
+    public int getResponses5xx() {
+        return statistics.getResponses5xx();
+    }
+
+    @Override
+    public int getThreads() {
+        return threadPool.getThreads();
+    }
+
+    @Override
+    public int getBusyThreads() {
+        return threadPool.getBusyThreads();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return threadPool.getIdleThreads();
+    }
+
+    @Override
+    public int getMaxThreads() {
+        return threadPool.getMaxThreads();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return threadPool.getQueueSize();
+    }
+
+    @Override
+    public long getConnections() {
+        long connections = 0;
+        for (Connector connector : server.getConnectors()) {
+            ConnectionStatistics connectionStatistics = connector.getBean(ConnectionStatistics.class);
+            if (connectionStatistics != null) {
+                connections += connectionStatistics.getConnections();
+            }
+        }
+        return connections;
+    }
+
+    @Override
+    public int getSelectors() {
+        int selectors = 0;
+        for (Connector connector : server.getConnectors()) {
+            if (connector instanceof ServerConnector) {
+                selectors += ((ServerConnector) connector).getSelectorManager().getSelectorCount();
+            }
+        }
+        return selectors;
+    }
+
+    @Override
+    public long getShedRequests() {
+        return limits.stream().mapToLong(ConcurrencyLimit::getShed).sum();
+    }
+
+    @Override
+    public String getPrometheus() {
+        StringBuilder builder = new StringBuilder();
+
+        type(builder, "minho_http_requests_total", "counter", "Number of HTTP requests.");
+        builder.append("minho_http_requests_total ").append(statistics.getRequests()).append('\n');
+        type(builder, "minho_http_requests_active", "gauge", "Number of HTTP requests currently handled.");
+        builder.append("minho_http_requests_active ").append(statistics.getRequestsActive()).append('\n');
+        type(builder, "minho_http_requests_active_max", "gauge", "Max number of HTTP requests handled at the same time.");
+        builder.append("minho_http_requests_active_max ").append(statistics.getRequestsActiveMax()).append('\n');
+        type(builder, "minho_http_requests_async_waiting", "gauge", "Number of suspended asynchronous HTTP requests.");
+        builder.append("minho_http_requests_async_waiting ").append(statistics.getAsyncRequestsWaiting()).append('\n');
+        type(builder, "minho_http_responses_total", "counter", "Number of HTTP responses by status class.");
+        builder.append("minho_http_responses_total{status=\"1xx\"} ").append(statistics.getResponses1xx()).append('\n');
+        builder.append("minho_http_responses_total{status=\"2xx\"} ").append(statistics.getResponses2xx()).append('\n');
+        builder.append("minho_http_responses_total{status=\"3xx\"} ").append(statistics.getResponses3xx()).append('\n');
+        builder.append("minho_http_responses_total{status=\"4xx\"} ").append(statistics.getResponses4xx()).append('\n');
+        builder.append("minho_http_responses_total{status=\"5xx\"} ").append(statistics.getResponses5xx()).append('\n');
+        type(builder, "minho_http_request_duration_seconds", "histogram", "HTTP requests latency.");
+        latency.toPrometheus(builder, "minho_http_request_duration_seconds", "");
+        type(builder, "minho_http_request_duration_max_seconds", "gauge", "Max HTTP request latency.");
+        builder.append("minho_http_request_duration_max_seconds ").append(seconds(statistics.getRequestTimeMax())).append('\n');
+
+        type(builder, "minho_http_threads", "gauge", "Number of threads in the HTTP thread pool.");
+        builder.append("minho_http_threads ").append(threadPool.getThreads()).append('\n');
+        type(builder, "minho_http_threads_busy", "gauge", "Number of busy threads in the HTTP thread pool.");
+        builder.append("minho_http_threads_busy ").append(threadPool.getBusyThreads()).append('\n');
+        type(builder, "minho_http_threads_idle", "gauge", "Number of idle threads in the HTTP thread pool.");
+        builder.append("minho_http_threads_idle ").append(threadPool.getIdleThreads()).append('\n');
+        type(builder, "minho_http_threads_min", "gauge", "Min number of threads in the HTTP thread pool.");
+        builder.append("minho_http_threads_min ").append(threadPool.getMinThreads()).append('\n');
+        type(builder, "minho_http_threads_max", "gauge", "Max number of threads in the HTTP thread pool.");
+        builder.append("minho_http_threads_max ").append(threadPool.getMaxThreads()).append('\n');
+        type(builder, "minho_http_thread_pool_queue_size", "gauge", "Number of jobs waiting for a thread in the HTTP thread pool.");
+        builder.append("minho_http_thread_pool_queue_size ").append(threadPool.getQueueSize()).append('\n');
+        if (pinningMonitor != null) {
+            type(builder, "minho_http_virtual_threads_pinned_total", "counter", "Number of virtual threads pinned on their carrier thread.");
+            builder.append("minho_http_virtual_threads_pinned_total ").append(pinningMonitor.getPinnedCount()).append('\n');
+            type(builder, "minho_http_virtual_threads_pinned_seconds_total", "counter", "Total time virtual threads have been pinned on their carrier thread.");
+            builder.append("minho_http_virtual_threads_pinned_seconds_total ").append(seconds(pinningMonitor.getPinnedTime())).append('\n');
+        }
+
+        if (!limits.isEmpty()) {
+            type(builder, "minho_http_route_limit", "gauge", "Concurrency limit by route.");
+            limits.forEach(limit -> builder.append("minho_http_route_limit{route=\"").append(limit.getName()).append("\"} ").append(limit.getLimit()).append('\n'));
+            type(builder, "minho_http_route_in_flight", "gauge", "Number of requests currently handled by route.");
+            limits.forEach(limit -> builder.append("minho_http_route_in_flight{route=\"").append(limit.getName()).append("\"} ").append(limit.getInFlight()).append('\n'));
+            type(builder, "minho_http_route_shed_total", "counter", "Number of requests rejected by the concurrency limit by route.");
+            limits.forEach(limit -> builder.append("minho_http_route_shed_total{route=\"").append(limit.getName()).append("\"} ").append(limit.getShed()).append('\n'));
+        }
+
+        type(builder, "minho_http_selectors", "gauge", "Number of selectors by connector.");
+        for (Connector connector : server.getConnectors()) {
+            if (connector instanceof ServerConnector) {
+                builder.append("minho_http_selectors{connector=\"").append(name(connector)).append("\"} ").append(((ServerConnector) connector).getSelectorManager().getSelectorCount()).append('\n');
+            }
+        }
+        type(builder, "minho_http_connections", "gauge", "Number of open connections by connector.");
+        connections(builder, "minho_http_connections", ConnectionStatistics::getConnections);
+        type(builder, "minho_http_connections_max", "gauge", "Max number of open connections by connector.");
+        connections(builder, "minho_http_connections_max", ConnectionStatistics::getConnectionsMax);
+        type(builder, "minho_http_received_bytes_total", "counter", "Bytes received by connector.");
+        connections(builder, "minho_http_received_bytes_total", ConnectionStatistics::getReceivedBytes);
+        type(builder, "minho_http_sent_bytes_total", "counter", "Bytes sent by connector.");
+        connections(builder, "minho_http_sent_bytes_total", ConnectionStatistics::getSentBytes);
+        return builder.toString();
+    }
+
+    private void connections(StringBuilder builder, String metric, ToLongFunction<ConnectionStatistics> value) {
+        for (Connector connector : server.getConnectors()) {
+            ConnectionStatistics connectionStatistics = connector.getBean(ConnectionStatistics.class);
+            if (connectionStatistics != null) {
+                builder.append(metric).append("{connector=\"").append(name(connector)).append("\"} ").append(value.applyAsLong(connectionStatistics)).append('\n');
+            }
+        }
+    }
+
+    private static String name(Connector connector) {
+        if (connector.getName() != null) {
+            return connector.getName();
+        }
+        if (connector instanceof ServerConnector) {
+            return String.join("-", connector.getProtocols()) + "-" + ((ServerConnector) connector).getPort();
+        }
+        return String.join("-", connector.getProtocols());
+    }
+
+    private static void type(StringBuilder builder, String metric, String type, String help) {
+        builder.append("# HELP ").append(metric).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(metric).append(' ').append(type).append('\n');
+    }
+
+    private static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+/**
+ * HTTP metrics MBean, exposing the requests statistics and the thread pool and connectors usage.
+ */
+public interface HttpMetricsMBean {
+
+    /**
+     * @return the number of requests since the HTTP service start.
+     */
+    int getRequests();
+
+    /**
+     * @return the number of requests currently handled.
+     */
+    int getRequestsActive();
+
+    /**
+     * @return the max number of requests handled at the same time.
+     */
+    int getRequestsActiveMax();
+
+    /**
+     * @return the mean request time in milliseconds.
+     */
+    double getRequestTimeMean();
+
+    /**
+     * @return the max request time in milliseconds.
+     */
+    long getRequestTimeMax();
+
+    /**
+     * @return the number of responses with a 4xx status.
+     */
+    int getResponses4xx();
+
+    /**
+     * @return the number of responses with a 5xx status.
+     */
+    int getResponses5xx();
+
+    /**
+     * @return the number of threads in the HTTP thread pool.
+     */
+    int getThreads();
+
+    /**
+     * @return the number of busy threads in the HTTP thread pool.
+     */
+    int getBusyThreads();
+
+    /**
+     * @return the number of idle threads in the HTTP thread pool.
+     */
+    int getIdleThreads();
+
+    /**
+     * @return the max number of threads in the HTTP thread pool.
+     */
+    int getMaxThreads();
+
+    /**
+     * @return the number of jobs waiting for a thread in the HTTP thread pool.
+     */
+    int getQueueSize();
+
+    /**
+     * @return the number of open connections (all connectors).
+     */
+    long getConnections();
+
+    /**
+     * @return the number of selectors (all connectors).
+     */
+    int getSelectors();
+
+    /**
+     * @return the number of requests rejected by the routes concurrency limits.
+     */
+    long getShedRequests();
+
+    /**
+     * @return the metrics in Prometheus text format.
+     */
+    String getPrometheus();
+
+}
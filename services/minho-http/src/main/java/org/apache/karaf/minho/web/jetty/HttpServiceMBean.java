@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+/**
+ * HTTP service MBean, allowing to update the thread pool and connectors without restarting the server.
+ */
+public interface HttpServiceMBean {
+
+    int getMaxThreads();
+
+    void setMaxThreads(int maxThreads);
+
+    int getMinThreads();
+
+    void setMinThreads(int minThreads);
+
+    /**
+     * @return the thread pool threads idle timeout, in milliseconds.
+     */
+    int getIdleTimeout();
+
+    void setIdleTimeout(int idleTimeout);
+
+    int getAcceptQueueSize();
+
+    void setAcceptQueueSize(int acceptQueueSize);
+
+    /**
+     * @return the ports of the connectors.
+     */
+    int[] getPorts();
+
+    /**
+     * Add a HTTP connector.
+     *
+     * @param host the connector host.
+     * @param port the connector port (0 for a random port).
+     * @return the connector local port.
+     */
+    int addConnector(String host, int port) throws Exception;
+
+    /**
+     * Remove a connector.
+     *
+     * @param port the connector port.
+     * @return true if the connector has been removed, false else.
+     */
+    boolean removeConnector(int port) throws Exception;
+
+}
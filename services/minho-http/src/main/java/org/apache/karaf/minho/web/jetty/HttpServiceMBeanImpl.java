@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+import org.eclipse.jetty.server.NetworkConnector;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+import java.util.Arrays;
+
+public class HttpServiceMBeanImpl extends StandardMBean implements HttpServiceMBean {
+
+    private final JettyWebContainerService service;
+
+    public HttpServiceMBeanImpl(JettyWebContainerService service) throws NotCompliantMBeanException {
+        super(HttpServiceMBean.class);
+        this.service = service;
+    }
+
+    @Override
+    public int getMaxThreads() {
+        return service.getMaxThreads();
+    }
+
+    @Override
+    public void setMaxThreads(int maxThreads) {
+        service.setMaxThreads(maxThreads);
+    }
+
+    @Override
+    public int getMinThreads() {
+        return service.getMinThreads();
+    }
+
+    @Override
+    public void setMinThreads(int minThreads) {
+        service.setMinThreads(minThreads);
+    }
+
+    @Override
+    public int getIdleTimeout() {
+        return service.getIdleTimeout();
+    }
+
+    @Override
+    public void setIdleTimeout(int idleTimeout) {
+        service.setIdleTimeout(idleTimeout);
+    }
+
+    @Override
+    public int getAcceptQueueSize() {
+        return service.getAcceptQueueSize();
+    }
+
+    @Override
+    public void setAcceptQueueSize(int acceptQueueSize) {
+        service.setAcceptQueueSize(acceptQueueSize);
+    }
+
+    @Override
+    public int[] getPorts() {
+        return Arrays.stream(service.getServer().getConnectors())
+                .filter(NetworkConnector.class::isInstance)
+                .mapToInt(connector -> ((NetworkConnector) connector).getLocalPort())
+                .toArray();
+    }
+
+    @Override
+    public int addConnector(String host, int port) throws Exception {
+        return service.addConnector(host, port).getLocalPort();
+    }
+
+    @Override
+    public boolean removeConnector(int port) throws Exception {
+        return service.removeConnector(port);
+    }
+
+}
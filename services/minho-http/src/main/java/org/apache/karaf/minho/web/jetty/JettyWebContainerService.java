@@ -19,18 +19,46 @@ package org.apache.karaf.minho.web.jetty;
 
 import jakarta.servlet.Servlet;
 import lombok.extern.java.Log;
+import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.ConfigListener;
 import org.apache.karaf.minho.boot.service.ConfigService;
 import org.apache.karaf.minho.boot.service.LifeCycleService;
 import org.apache.karaf.minho.boot.service.ServiceRegistry;
 import org.apache.karaf.minho.boot.spi.Service;
+import org.apache.karaf.minho.jmx.JmxService;
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.io.ConnectionStatistics;
+import org.eclipse.jetty.http2.HTTP2Cipher;
+import org.eclipse.jetty.http2.server.AbstractHTTP2ServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.ConnectionFactory;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.NetworkConnector;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.server.handler.StatisticsHandler;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.servlet.DefaultServlet;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.eclipse.jetty.unixdomain.server.UnixDomainServerConnector;
+import org.eclipse.jetty.util.VirtualThreads;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
+import javax.management.ObjectName;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 @Log
 public class JettyWebContainerService implements Service, AutoCloseable {
 
@@ -42,19 +70,73 @@ public class JettyWebContainerService implements Service, AutoCloseable {
     public static final String HTTP_PORT = "http.port";
     public static final String HTTP_HOST = "http.host";
     public static final String HTTP_ACCEPT_QUEUE_SIZE = "http.acceptQueueSize";
+    public static final String HTTP_BOOT_REPORT_PATH = "http.bootReportPath";
+    public static final String HTTP_THREAD_POOL = "http.threadPool";
+    public static final String HTTP_PINNED_THRESHOLD = "http.pinnedThreshold";
+    public static final String HTTP_H2C = "http.h2c";
+    public static final String HTTP_SECURE_PORT = "http.securePort";
+    public static final String HTTP_KEY_STORE_PATH = "http.keyStorePath";
+    public static final String HTTP_KEY_STORE_PASSWORD = "http.keyStorePassword";
+    public static final String HTTP_KEY_STORE_TYPE = "http.keyStoreType";
+    public static final String HTTP_HTTP2 = "http.http2";
+    public static final String HTTP_MAX_CONCURRENT_STREAMS = "http.maxConcurrentStreams";
+    public static final String HTTP_INITIAL_STREAM_RECV_WINDOW = "http.initialStreamRecvWindow";
+    public static final String HTTP_INITIAL_SESSION_RECV_WINDOW = "http.initialSessionRecvWindow";
+    public static final String HTTP_HEADER_TABLE_SIZE = "http.headerTableSize";
+    public static final String HTTP_GZIP = "http.gzip";
+    public static final String HTTP_GZIP_MIN_SIZE = "http.gzipMinSize";
+    public static final String HTTP_GZIP_INCLUDED_MIME_TYPES = "http.gzipIncludedMimeTypes";
+    public static final String HTTP_GZIP_EXCLUDED_MIME_TYPES = "http.gzipExcludedMimeTypes";
+    public static final String HTTP_STATIC_PATH = "http.staticPath";
+    public static final String HTTP_STATIC_RESOURCES = "http.staticResources";
+    public static final String HTTP_STATIC_MAX_CACHE_SIZE = "http.staticMaxCacheSize";
+    public static final String HTTP_STATIC_MAX_CACHED_FILE_SIZE = "http.staticMaxCachedFileSize";
+    public static final String HTTP_STATIC_MAX_CACHED_FILES = "http.staticMaxCachedFiles";
+    public static final String HTTP_STATIC_CACHE_CONTROL = "http.staticCacheControl";
+    public static final String HTTP_METRICS_PATH = "http.metricsPath";
+    public static final String HTTP_METRICS_JMX = "http.metricsJmx";
+    public static final String HTTP_METRICS_OBJECT_NAME = "http.metricsObjectName";
+    public static final String HTTP_STOP_TIMEOUT = "http.stopTimeout";
+    public static final String HTTP_JMX = "http.jmx";
+    public static final String HTTP_OBJECT_NAME = "http.objectName";
+    public static final String HTTP_LISTENERS = "http.listeners";
+    public static final String HTTP_CONNECTORS = "http.connectors";
+    public static final String HTTP_CONNECTOR_PREFIX = "http.connector.";
+    public static final String HTTP_LIMITS = "http.limits";
+    public static final String HTTP_LIMIT_PREFIX = "http.limit.";
+    public static final String HTTP_ASYNC_SUPPORTED = "http.asyncSupported";
 
     private Server server;
     private ServerConnector connector;
+    private ServerConnector secureConnector;
     private ServletContextHandler servlets;
+    private VirtualThreadPinningMonitor pinningMonitor;
+    private HttpMetrics metrics;
+    private GracefulShutdownHandler gracefulShutdownHandler;
+    private long stopTimeout;
+    private ConfigService configService;
+    private ConfigListener configListener;
+    private QueuedThreadPool threadPool;
+    private HttpConfiguration httpConfiguration;
+    private int acceptors;
+    private int selectors;
+    private int acceptQueueSize;
+    private boolean h2c;
+    private boolean asyncSupported = true;
 
     @Override
     public String name() {
         return "minho-http-service";
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return List.of(ConfigService.class, LifeCycleService.class, Servlet.class);
+    }
+
     @Override
     public void onRegister(ServiceRegistry serviceRegistry) throws Exception {
-        ConfigService configService = serviceRegistry.get(ConfigService.class);
+        configService = serviceRegistry.get(ConfigService.class);
         if (configService == null) {
             log.warning("ConfigService is not found in the registry");
         }
@@ -65,20 +147,39 @@ public class JettyWebContainerService implements Service, AutoCloseable {
         int minThreads = (configService != null && configService.getProperty(HTTP_MIN_THREADS) != null) ? Integer.parseInt(configService.getProperty(HTTP_MIN_THREADS)) : Math.min(8, maxThreads);
         int idleTimeout = (configService != null && configService.getProperty(HTTP_IDLE_TIMEOUT) != null) ? Integer.parseInt(configService.getProperty(HTTP_IDLE_TIMEOUT)) : 60000;
 
-        QueuedThreadPool threadPool = new QueuedThreadPool(maxThreads, minThreads, idleTimeout);
+        threadPool = new QueuedThreadPool(maxThreads, minThreads, idleTimeout);
         threadPool.setName("minho-http");
         log.info("Creating HTTP queued thread pool");
         log.info("\tmaxThreads: " + maxThreads);
         log.info("\tminThreads: " + minThreads);
         log.info("\tidleTimeout: " + idleTimeout);
 
+        String threadPoolType = (configService != null && configService.getProperty(HTTP_THREAD_POOL) != null) ? configService.getProperty(HTTP_THREAD_POOL) : "platform";
+        if ("virtual".equalsIgnoreCase(threadPoolType)) {
+            if (VirtualThreads.areSupported()) {
+                // acceptors and selectors stay on the queued thread pool (platform threads), blocking request handling runs on virtual threads
+                threadPool.setVirtualThreadsExecutor(VirtualThreads.getDefaultVirtualThreadsExecutor());
+                long pinnedThreshold = (configService != null && configService.getProperty(HTTP_PINNED_THRESHOLD) != null) ? Long.parseLong(configService.getProperty(HTTP_PINNED_THRESHOLD)) : 20;
+                log.info("Using virtual threads for HTTP requests");
+                log.info("\tpinnedThreshold: " + pinnedThreshold);
+                pinningMonitor = new VirtualThreadPinningMonitor();
+                if (!pinningMonitor.start(Duration.ofMillis(pinnedThreshold))) {
+                    pinningMonitor = null;
+                }
+            } else {
+                log.warning("Virtual threads are not supported by the JVM, using platform threads for HTTP requests");
+            }
+        } else if (!"platform".equalsIgnoreCase(threadPoolType)) {
+            throw new IllegalStateException("Invalid " + HTTP_THREAD_POOL + " value: " + threadPoolType + " (platform or virtual expected)");
+        }
+
         server = new Server(threadPool);
 
-        int acceptors = (configService != null && configService.getProperty(HTTP_ACCEPTORS) != null) ? Integer.parseInt(configService.getProperty(HTTP_ACCEPTORS)) : -1;
-        int selectors = (configService != null && configService.getProperty(HTTP_SELECTORS) != null) ? Integer.parseInt(configService.getProperty(HTTP_SELECTORS)) : -1;
+        acceptors = (configService != null && configService.getProperty(HTTP_ACCEPTORS) != null) ? Integer.parseInt(configService.getProperty(HTTP_ACCEPTORS)) : -1;
+        selectors = (configService != null && configService.getProperty(HTTP_SELECTORS) != null) ? Integer.parseInt(configService.getProperty(HTTP_SELECTORS)) : -1;
         int port = (configService != null && configService.getProperty(HTTP_PORT) != null) ? Integer.parseInt(configService.getProperty(HTTP_PORT)) : 8080;
         String host = (configService != null && configService.getProperty(HTTP_HOST) != null) ? configService.getProperty(HTTP_HOST) : "0.0.0.0";
-        int acceptQueueSize = (configService != null && configService.getProperty(HTTP_ACCEPT_QUEUE_SIZE) != null) ? Integer.parseInt(configService.getProperty(HTTP_ACCEPT_QUEUE_SIZE)) : 0;
+        acceptQueueSize = (configService != null && configService.getProperty(HTTP_ACCEPT_QUEUE_SIZE) != null) ? Integer.parseInt(configService.getProperty(HTTP_ACCEPT_QUEUE_SIZE)) : 0;
 
         log.info("Creating HTTP server connector");
         log.info("\tacceptors: " + acceptors);
@@ -86,37 +187,204 @@ public class JettyWebContainerService implements Service, AutoCloseable {
         log.info("\tport: " + port);
         log.info("\thost: " + host);
         log.info("\tacceptQueueSize: " + acceptQueueSize);
-        connector = new ServerConnector(server, acceptors, selectors, new HttpConnectionFactory());
-        connector.setPort(port);
-        connector.setHost(host);
-        connector.setAcceptQueueSize(acceptQueueSize);
-
+        h2c = configService != null && Boolean.parseBoolean(configService.getProperty(HTTP_H2C));
+        log.info("\th2c: " + h2c);
+        httpConfiguration = new HttpConfiguration();
+        int listeners = (configService != null && configService.getProperty(HTTP_LISTENERS) != null) ? Integer.parseInt(configService.getProperty(HTTP_LISTENERS)) : 1;
+        log.info("\tlisteners: " + listeners);
+        connector = createConnector(host, port, acceptors, selectors, acceptQueueSize);
         server.addConnector(connector);
+        if (listeners > 1) {
+            // SO_REUSEPORT listening sockets, the kernel balances the accepts between the sockets
+            // named like the additional connectors listeners, to have distinct metrics by listener
+            connector.setName("default-0");
+            connector.setReusePort(true);
+            for (int i = 1; i < listeners; i++) {
+                ServerConnector listener = createConnector(host, port, acceptors, selectors, acceptQueueSize);
+                listener.setName("default-" + i);
+                listener.setReusePort(true);
+                server.addConnector(listener);
+            }
+        }
+
+        if (configService != null && configService.getProperty(HTTP_CONNECTORS) != null) {
+            for (String name : configService.getProperty(HTTP_CONNECTORS).split(",")) {
+                if (!name.trim().isEmpty()) {
+                    addConnectors(name.trim());
+                }
+            }
+        }
+
+        if (configService != null && configService.getProperty(HTTP_SECURE_PORT) != null) {
+            int securePort = Integer.parseInt(configService.getProperty(HTTP_SECURE_PORT));
+            String keyStorePath = configService.getProperty(HTTP_KEY_STORE_PATH);
+            if (keyStorePath == null) {
+                throw new IllegalStateException(HTTP_KEY_STORE_PATH + " is required for the HTTP secure connector");
+            }
+            String keyStoreType = configService.getProperty(HTTP_KEY_STORE_TYPE, "PKCS12");
+            boolean http2 = Boolean.parseBoolean(configService.getProperty(HTTP_HTTP2, "true"));
+
+            log.info("Creating HTTP secure server connector");
+            log.info("\tsecurePort: " + securePort);
+            log.info("\tkeyStorePath: " + keyStorePath);
+            log.info("\tkeyStoreType: " + keyStoreType);
+            log.info("\thttp2: " + http2);
 
+            SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+            sslContextFactory.setKeyStorePath(keyStorePath);
+            sslContextFactory.setKeyStorePassword(configService.getProperty(HTTP_KEY_STORE_PASSWORD));
+            sslContextFactory.setKeyStoreType(keyStoreType);
+
+            HttpConfiguration httpsConfiguration = new HttpConfiguration(httpConfiguration);
+            httpsConfiguration.setSecurePort(securePort);
+            httpsConfiguration.addCustomizer(new SecureRequestCustomizer());
+            HttpConnectionFactory https = new HttpConnectionFactory(httpsConfiguration);
+
+            if (http2) {
+                // HTTP/2 negotiated with ALPN, HTTP/1.1 for clients not supporting it
+                sslContextFactory.setCipherComparator(HTTP2Cipher.COMPARATOR);
+                ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory();
+                alpn.setDefaultProtocol(https.getProtocol());
+                secureConnector = new ServerConnector(server, acceptors, selectors,
+                        new SslConnectionFactory(sslContextFactory, alpn.getProtocol()),
+                        alpn,
+                        configure(new HTTP2ServerConnectionFactory(httpsConfiguration), configService),
+                        https);
+            } else {
+                secureConnector = new ServerConnector(server, acceptors, selectors,
+                        new SslConnectionFactory(sslContextFactory, https.getProtocol()),
+                        https);
+            }
+            secureConnector.setPort(securePort);
+            secureConnector.setHost(host);
+            secureConnector.setAcceptQueueSize(acceptQueueSize);
+            secureConnector.addBean(new ConnectionStatistics());
+
+            server.addConnector(secureConnector);
+        }
+
+        asyncSupported = configService == null || Boolean.parseBoolean(configService.getProperty(HTTP_ASYNC_SUPPORTED, "true"));
         servlets = new ServletContextHandler(ServletContextHandler.SESSIONS);
         servlets.setContextPath("/");
         server.setHandler(servlets);
 
         addServlets(serviceRegistry);
 
-        server.insertHandler(new StatisticsHandler());
+        String bootReportPath = (configService != null) ? configService.getProperty(HTTP_BOOT_REPORT_PATH) : null;
+        if (bootReportPath != null && !bootReportPath.isEmpty()) {
+            log.info("Adding boot report servlet with context " + bootReportPath);
+            servlets.addServlet(new ServletHolder(new BootReportServlet(serviceRegistry.getBootReport())), bootReportPath);
+        }
+
+        if (configService != null) {
+            addStaticContent(configService);
+            addCompression(configService);
+        }
+
+        List<ConcurrencyLimit> limits = new ArrayList<>();
+        if (configService != null && configService.getProperty(HTTP_LIMITS) != null) {
+            for (String name : configService.getProperty(HTTP_LIMITS).split(",")) {
+                if (!name.trim().isEmpty()) {
+                    limits.add(createLimit(name.trim()));
+                }
+            }
+        }
+        if (!limits.isEmpty()) {
+            server.insertHandler(new ConcurrencyLimitHandler(limits));
+        }
+
+        LatencyHandler latencyHandler = new LatencyHandler();
+        server.insertHandler(latencyHandler);
+        StatisticsHandler statisticsHandler = new StatisticsHandler();
+        server.insertHandler(statisticsHandler);
+        metrics = new HttpMetrics(server, statisticsHandler, latencyHandler.getHistogram(), threadPool, pinningMonitor, limits);
+        gracefulShutdownHandler = new GracefulShutdownHandler();
+        server.insertHandler(gracefulShutdownHandler);
+        stopTimeout = (configService != null && configService.getProperty(HTTP_STOP_TIMEOUT) != null) ? Long.parseLong(configService.getProperty(HTTP_STOP_TIMEOUT)) : 30000;
+        log.info("\tstopTimeout: " + stopTimeout);
+
+        String metricsPath = (configService != null) ? configService.getProperty(HTTP_METRICS_PATH) : null;
+        if (metricsPath != null && !metricsPath.isEmpty()) {
+            log.info("Adding metrics servlet with context " + metricsPath);
+            servlets.addServlet(new ServletHolder(new MetricsServlet(metrics)), metricsPath);
+        }
+
+        boolean metricsJmx = configService == null || Boolean.parseBoolean(configService.getProperty(HTTP_METRICS_JMX, "true"));
+        String metricsObjectName = "org.apache.karaf.minho:type=http,name=metrics";
+        if (configService != null && configService.getProperty(HTTP_METRICS_OBJECT_NAME) != null) {
+            metricsObjectName = configService.getProperty(HTTP_METRICS_OBJECT_NAME);
+        }
+        ObjectName metricsName = new ObjectName(metricsObjectName);
+
+        boolean jmx = configService == null || Boolean.parseBoolean(configService.getProperty(HTTP_JMX, "true"));
+        String serviceObjectName = "org.apache.karaf.minho:type=http,name=service";
+        if (configService != null && configService.getProperty(HTTP_OBJECT_NAME) != null) {
+            serviceObjectName = configService.getProperty(HTTP_OBJECT_NAME);
+        }
+        ObjectName serviceName = new ObjectName(serviceObjectName);
+
+        if (configService != null) {
+            // live update of the thread pool and connectors settings on config reload
+            configListener = (config, keys) -> reconfigure(config, keys);
+            configService.addListener(configListener);
+        }
+
+        boolean jmxPresent = true;
+        try {
+            Class.forName("org.apache.karaf.minho.jmx.JmxService", false, JettyWebContainerService.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            // minho-jmx is not present
+            jmxPresent = false;
+        }
+        boolean mbeans = jmxPresent && (metricsJmx || jmx);
 
         LifeCycleService lifeCycleService = serviceRegistry.get(LifeCycleService.class);
-        lifeCycleService.onStart(() -> {
+        lifeCycleService.onStart(LifeCycleService.INGRESS, () -> {
             try {
                 server.start();
                 // server.join();
             } catch (Exception e) {
                 throw new RuntimeException("Can't start HTTP service", e);
             }
+            JmxService jmxService = mbeans ? serviceRegistry.get(JmxService.class) : null;
+            if (jmxService != null) {
+                try {
+                    if (metricsJmx) {
+                        jmxService.registerMBean(metrics, metricsName);
+                    }
+                    if (jmx) {
+                        jmxService.registerMBean(new HttpServiceMBeanImpl(this), serviceName);
+                    }
+                } catch (Exception e) {
+                    log.warning("Can't register HTTP service MBeans: " + e.getMessage());
+                }
+            }
         });
-        lifeCycleService.onShutdown(() -> {
+        lifeCycleService.onShutdown(LifeCycleService.INGRESS, () -> {
+            if (configListener != null) {
+                configService.removeListener(configListener);
+            }
+            JmxService jmxService = mbeans ? serviceRegistry.get(JmxService.class) : null;
+            if (jmxService != null) {
+                try {
+                    if (metricsJmx) {
+                        jmxService.unregisterMBean(metricsName);
+                    }
+                    if (jmx) {
+                        jmxService.unregisterMBean(serviceName);
+                    }
+                } catch (Exception e) {
+                    log.warning("Can't unregister HTTP service MBeans: " + e.getMessage());
+                }
+            }
             try {
-                connector.close();
-                server.stop();
+                stop();
             } catch (Exception e) {
                 log.warning("Can't stop HTTP service: " + e.getMessage());
             }
+            if (pinningMonitor != null) {
+                pinningMonitor.close();
+            }
         });
     }
 
@@ -128,12 +396,172 @@ public class JettyWebContainerService implements Service, AutoCloseable {
         return this.connector;
     }
 
+    public ServerConnector getSecureServerConnector() {
+        return this.secureConnector;
+    }
+
+    /**
+     * Retrieve the HTTP metrics (requests, thread pool and connectors statistics).
+     *
+     * @return the HTTP metrics.
+     */
+    public HttpMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Retrieve the virtual threads pinning monitor.
+     *
+     * @return the pinning monitor, or <code>null</code> if the HTTP service doesn't use virtual threads.
+     */
+    public VirtualThreadPinningMonitor getPinningMonitor() {
+        return this.pinningMonitor;
+    }
+
+    public GracefulShutdownHandler getGracefulShutdownHandler() {
+        return this.gracefulShutdownHandler;
+    }
+
+    public int getMaxThreads() {
+        return threadPool.getMaxThreads();
+    }
+
+    /**
+     * Update the max number of threads of the HTTP thread pool, without restarting the server.
+     *
+     * @param maxThreads the new max number of threads.
+     */
+    public void setMaxThreads(int maxThreads) {
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException("Invalid max threads: " + maxThreads);
+        }
+        log.info("Updating HTTP thread pool maxThreads to " + maxThreads);
+        threadPool.setMaxThreads(maxThreads);
+    }
+
+    public int getMinThreads() {
+        return threadPool.getMinThreads();
+    }
+
+    /**
+     * Update the min number of threads of the HTTP thread pool, without restarting the server.
+     *
+     * @param minThreads the new min number of threads.
+     */
+    public void setMinThreads(int minThreads) {
+        if (minThreads < 0) {
+            throw new IllegalArgumentException("Invalid min threads: " + minThreads);
+        }
+        log.info("Updating HTTP thread pool minThreads to " + minThreads);
+        threadPool.setMinThreads(minThreads);
+    }
+
+    public int getIdleTimeout() {
+        return threadPool.getIdleTimeout();
+    }
+
+    /**
+     * Update the idle timeout of the HTTP thread pool threads, without restarting the server.
+     *
+     * @param idleTimeout the new idle timeout, in milliseconds.
+     */
+    public void setIdleTimeout(int idleTimeout) {
+        log.info("Updating HTTP thread pool idleTimeout to " + idleTimeout);
+        threadPool.setIdleTimeout(idleTimeout);
+    }
+
+    public int getAcceptQueueSize() {
+        return acceptQueueSize;
+    }
+
+    /**
+     * Set the accept queue size of the connectors. The accept queue size being the listening socket backlog, the running
+     * connectors are not updated live (the listening sockets are not rebound): the new value applies to the connectors
+     * added afterwards, and to the running connectors when they are restarted.
+     *
+     * @param acceptQueueSize the new accept queue size.
+     */
+    public void setAcceptQueueSize(int acceptQueueSize) {
+        log.info("Setting HTTP connectors acceptQueueSize to " + acceptQueueSize + " (applies to new connectors and on connectors restart)");
+        this.acceptQueueSize = acceptQueueSize;
+        for (Connector serverConnector : server.getConnectors()) {
+            if (serverConnector instanceof ServerConnector) {
+                ((ServerConnector) serverConnector).setAcceptQueueSize(acceptQueueSize);
+            }
+        }
+    }
+
+    /**
+     * Add a HTTP connector (using the same settings as the main HTTP connector), started if the server is started.
+     *
+     * @param host the connector host.
+     * @param port the connector port.
+     * @return the created connector.
+     * @throws Exception if the connector can't start.
+     */
+    public ServerConnector addConnector(String host, int port) throws Exception {
+        log.info("Adding HTTP connector on " + host + ":" + port);
+        ServerConnector serverConnector = createConnector(host, port, acceptors, selectors, acceptQueueSize);
+        server.addConnector(serverConnector);
+        if (server.isStarted()) {
+            serverConnector.start();
+        }
+        return serverConnector;
+    }
+
+    /**
+     * Remove a connector: the connector stops accepting new connections, and its connections are closed.
+     *
+     * @param port the port of the connector to remove.
+     * @return true if a connector has been removed, false else.
+     * @throws Exception if the connector can't stop.
+     */
+    public boolean removeConnector(int port) throws Exception {
+        for (Connector serverConnector : server.getConnectors()) {
+            if (serverConnector instanceof NetworkConnector && (((NetworkConnector) serverConnector).getPort() == port || ((NetworkConnector) serverConnector).getLocalPort() == port)) {
+                log.info("Removing HTTP connector on port " + port);
+                ((NetworkConnector) serverConnector).close();
+                serverConnector.stop();
+                server.removeConnector(serverConnector);
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void start() throws Exception {
+        gracefulShutdownHandler.reset();
         server.start();
     }
 
+    /**
+     * Gracefully stop the HTTP server: the connectors stop accepting new connections, new requests on open connections
+     * are rejected (503), and the in-flight requests are drained (up to <code>http.stopTimeout</code>) before stopping the server.
+     *
+     * @throws Exception if the server stop fails.
+     */
     public void stop() throws Exception {
+        if (!server.isStarted()) {
+            return;
+        }
+        gracefulShutdownHandler.shutdown();
+        for (Connector serverConnector : server.getConnectors()) {
+            if (serverConnector instanceof NetworkConnector) {
+                ((NetworkConnector) serverConnector).close();
+            }
+        }
+        if (stopTimeout > 0 && gracefulShutdownHandler.getActive() > 0) {
+            log.info("Draining " + gracefulShutdownHandler.getActive() + " in-flight HTTP requests (timeout " + stopTimeout + "ms)");
+            if (!gracefulShutdownHandler.awaitDrained(stopTimeout)) {
+                log.warning("HTTP stop timeout reached, aborting " + gracefulShutdownHandler.getActive() + " in-flight requests");
+            }
+        }
+        int aborted = gracefulShutdownHandler.getActive();
         server.stop();
+        log.info("HTTP service stopped (in-flight: " + gracefulShutdownHandler.getInFlight()
+                + ", drained: " + gracefulShutdownHandler.getDrained()
+                + ", rejected: " + gracefulShutdownHandler.getRejected()
+                + ", aborted: " + aborted + ")");
     }
 
     public void restart() throws Exception {
@@ -143,16 +571,213 @@ public class JettyWebContainerService implements Service, AutoCloseable {
 
     @Override
     public void close() throws Exception {
-        server.stop();
+        stop();
+        if (pinningMonitor != null) {
+            pinningMonitor.close();
+        }
     }
 
     public ServletHolder addServlet(Class<? extends Servlet> servlet, String contextPath) throws Exception {
+        log.info("Adding servlet " + servlet.getName() + " with context " + contextPath);
+        ServletHolder holder = servlets.addServlet(servlet, contextPath);
+        holder.setAsyncSupported(asyncSupported);
+        return holder;
+    }
+
+    public ServletHolder addServlet(Servlet servlet, String contextPath) throws Exception {
         log.info("Adding servlet " + servlet.getClass().getName() + " with context " + contextPath);
-        return servlets.addServlet(servlet, contextPath);
+        ServletHolder holder = new ServletHolder(servlet);
+        holder.setAsyncSupported(asyncSupported);
+        servlets.addServlet(holder, contextPath);
+        return holder;
+    }
+
+    /**
+     * Create the concurrency limit defined by the <code>http.limit.[name].*</code> properties.
+     */
+    private ConcurrencyLimit createLimit(String name) {
+        String prefix = HTTP_LIMIT_PREFIX + name + ".";
+        String path = configService.getProperty(prefix + "path");
+        if (path == null) {
+            throw new IllegalStateException(prefix + "path is required for the HTTP " + name + " concurrency limit");
+        }
+        int maxConcurrency = Integer.parseInt(configService.getProperty(prefix + "maxConcurrency", "100"));
+        int minConcurrency = Integer.parseInt(configService.getProperty(prefix + "minConcurrency", String.valueOf(Math.min(10, maxConcurrency))));
+        boolean adaptive = Boolean.parseBoolean(configService.getProperty(prefix + "adaptive", "false"));
+        long latencyThreshold = Long.parseLong(configService.getProperty(prefix + "latencyThreshold", "1000"));
+        int retryAfter = Integer.parseInt(configService.getProperty(prefix + "retryAfter", "1"));
+        log.info("Adding HTTP " + name + " concurrency limit");
+        log.info("\tpath: " + path);
+        log.info("\tmaxConcurrency: " + maxConcurrency);
+        log.info("\tadaptive: " + adaptive);
+        if (adaptive) {
+            log.info("\tminConcurrency: " + minConcurrency);
+            log.info("\tlatencyThreshold: " + latencyThreshold);
+        }
+        log.info("\tretryAfter: " + retryAfter);
+        return new ConcurrencyLimit(name, path, minConcurrency, maxConcurrency, adaptive, latencyThreshold, retryAfter);
+    }
+
+    private ConnectionFactory[] connectionFactories() {
+        List<ConnectionFactory> connectionFactories = new ArrayList<>();
+        connectionFactories.add(new HttpConnectionFactory(httpConfiguration));
+        if (h2c) {
+            // cleartext HTTP/2, with HTTP/1.1 upgrade or prior knowledge
+            connectionFactories.add(configure(new HTTP2CServerConnectionFactory(httpConfiguration), configService));
+        }
+        return connectionFactories.toArray(new ConnectionFactory[0]);
+    }
+
+    private ServerConnector createConnector(String host, int port, int acceptors, int selectors, int acceptQueueSize) {
+        ServerConnector serverConnector = new ServerConnector(server, acceptors, selectors, connectionFactories());
+        serverConnector.setPort(port);
+        serverConnector.setHost(host);
+        serverConnector.setAcceptQueueSize(acceptQueueSize);
+        serverConnector.addBean(new ConnectionStatistics());
+        return serverConnector;
+    }
+
+    /**
+     * Create the connectors defined by the <code>http.connector.[name].*</code> properties.
+     */
+    private void addConnectors(String name) {
+        String prefix = HTTP_CONNECTOR_PREFIX + name + ".";
+        int connectorAcceptors = Integer.parseInt(configService.getProperty(prefix + "acceptors", String.valueOf(acceptors)));
+        int connectorSelectors = Integer.parseInt(configService.getProperty(prefix + "selectors", String.valueOf(selectors)));
+        int connectorAcceptQueueSize = Integer.parseInt(configService.getProperty(prefix + "acceptQueueSize", String.valueOf(acceptQueueSize)));
+        String unixSocket = configService.getProperty(prefix + "unixSocket");
+
+        log.info("Creating HTTP " + name + " connector");
+        log.info("\tacceptors: " + connectorAcceptors);
+        log.info("\tselectors: " + connectorSelectors);
+        log.info("\tacceptQueueSize: " + connectorAcceptQueueSize);
+        if (unixSocket != null) {
+            // requires Java 16+
+            log.info("\tunixSocket: " + unixSocket);
+            UnixDomainServerConnector unixConnector = new UnixDomainServerConnector(server, connectorAcceptors, connectorSelectors, connectionFactories());
+            unixConnector.setName(name);
+            unixConnector.setUnixDomainPath(Paths.get(unixSocket));
+            unixConnector.setAcceptQueueSize(connectorAcceptQueueSize);
+            unixConnector.addBean(new ConnectionStatistics());
+            server.addConnector(unixConnector);
+            return;
+        }
+
+        String port = configService.getProperty(prefix + "port");
+        if (port == null) {
+            throw new IllegalStateException(prefix + "port or " + prefix + "unixSocket is required for the HTTP " + name + " connector");
+        }
+        String host = configService.getProperty(prefix + "host", connector.getHost());
+        int listeners = Integer.parseInt(configService.getProperty(prefix + "listeners", "1"));
+        log.info("\tport: " + port);
+        log.info("\thost: " + host);
+        log.info("\tlisteners: " + listeners);
+        for (int i = 0; i < listeners; i++) {
+            ServerConnector serverConnector = createConnector(host, Integer.parseInt(port), connectorAcceptors, connectorSelectors, connectorAcceptQueueSize);
+            serverConnector.setName((listeners > 1) ? name + "-" + i : name);
+            serverConnector.setReusePort(listeners > 1);
+            server.addConnector(serverConnector);
+        }
+    }
+
+    private void reconfigure(Config config, Set<String> keys) {
+        try {
+            if (keys.contains(HTTP_MAX_THREADS) && config.getProperty(HTTP_MAX_THREADS) != null) {
+                setMaxThreads(Integer.parseInt(config.getProperty(HTTP_MAX_THREADS)));
+            }
+            if (keys.contains(HTTP_MIN_THREADS) && config.getProperty(HTTP_MIN_THREADS) != null) {
+                setMinThreads(Integer.parseInt(config.getProperty(HTTP_MIN_THREADS)));
+            }
+            if (keys.contains(HTTP_IDLE_TIMEOUT) && config.getProperty(HTTP_IDLE_TIMEOUT) != null) {
+                setIdleTimeout(Integer.parseInt(config.getProperty(HTTP_IDLE_TIMEOUT)));
+            }
+            if (keys.contains(HTTP_ACCEPT_QUEUE_SIZE) && config.getProperty(HTTP_ACCEPT_QUEUE_SIZE) != null) {
+                setAcceptQueueSize(Integer.parseInt(config.getProperty(HTTP_ACCEPT_QUEUE_SIZE)));
+            }
+        } catch (Exception e) {
+            log.warning("Can't update HTTP service: " + e.getMessage());
+        }
+    }
+
+    private void addCompression(ConfigService configService) {
+        if (!Boolean.parseBoolean(configService.getProperty(HTTP_GZIP))) {
+            return;
+        }
+        GzipHandler gzipHandler = new GzipHandler();
+        if (configService.getProperty(HTTP_GZIP_MIN_SIZE) != null) {
+            gzipHandler.setMinGzipSize(Integer.parseInt(configService.getProperty(HTTP_GZIP_MIN_SIZE)));
+        }
+        if (configService.getProperty(HTTP_GZIP_INCLUDED_MIME_TYPES) != null) {
+            gzipHandler.setIncludedMimeTypes(configService.getProperty(HTTP_GZIP_INCLUDED_MIME_TYPES).split(","));
+        }
+        if (configService.getProperty(HTTP_GZIP_EXCLUDED_MIME_TYPES) != null) {
+            gzipHandler.setExcludedMimeTypes(configService.getProperty(HTTP_GZIP_EXCLUDED_MIME_TYPES).split(","));
+        }
+        log.info("Adding HTTP gzip compression");
+        log.info("\tminGzipSize: " + gzipHandler.getMinGzipSize());
+        log.info("\tincludedMimeTypes: " + String.join(",", gzipHandler.getIncludedMimeTypes()));
+        log.info("\texcludedMimeTypes: " + String.join(",", gzipHandler.getExcludedMimeTypes()));
+        servlets.insertHandler(gzipHandler);
+    }
+
+    private void addStaticContent(ConfigService configService) {
+        String staticPath = configService.getProperty(HTTP_STATIC_PATH);
+        if (staticPath == null || staticPath.isEmpty()) {
+            return;
+        }
+        // default is the resources extracted by the extractor service
+        String resources = configService.getProperty(HTTP_STATIC_RESOURCES, configService.getProperty("extractor.target", "."));
+        if (resources.startsWith("classpath:")) {
+            URL url = Thread.currentThread().getContextClassLoader().getResource(resources.substring("classpath:".length()));
+            if (url == null) {
+                throw new IllegalStateException("Static resources " + resources + " not found");
+            }
+            resources = url.toExternalForm();
+        }
+        log.info("Adding static content servlet with context " + staticPath);
+        ServletHolder holder = new ServletHolder("minho-static", DefaultServlet.class);
+        holder.setInitParameter("resourceBase", resources);
+        holder.setInitParameter("pathInfoOnly", "true");
+        holder.setInitParameter("dirAllowed", "false");
+        holder.setInitParameter("etags", "true");
+        holder.setInitParameter("precompressed", "true");
+        // in memory resources cache, least recently used resources are evicted when the limits are reached
+        holder.setInitParameter("maxCacheSize", configService.getProperty(HTTP_STATIC_MAX_CACHE_SIZE, "33554432"));
+        holder.setInitParameter("maxCachedFileSize", configService.getProperty(HTTP_STATIC_MAX_CACHED_FILE_SIZE, "1048576"));
+        holder.setInitParameter("maxCachedFiles", configService.getProperty(HTTP_STATIC_MAX_CACHED_FILES, "2048"));
+        if (configService.getProperty(HTTP_STATIC_CACHE_CONTROL) != null) {
+            holder.setInitParameter("cacheControl", configService.getProperty(HTTP_STATIC_CACHE_CONTROL));
+        }
+        holder.getInitParameters().forEach((key, value) -> log.info("\t" + key + ": " + value));
+        servlets.addServlet(holder, staticPath);
+    }
+
+    private AbstractHTTP2ServerConnectionFactory configure(AbstractHTTP2ServerConnectionFactory http2, ConfigService configService) {
+        if (configService == null) {
+            return http2;
+        }
+        if (configService.getProperty(HTTP_MAX_CONCURRENT_STREAMS) != null) {
+            http2.setMaxConcurrentStreams(Integer.parseInt(configService.getProperty(HTTP_MAX_CONCURRENT_STREAMS)));
+        }
+        if (configService.getProperty(HTTP_INITIAL_STREAM_RECV_WINDOW) != null) {
+            http2.setInitialStreamRecvWindow(Integer.parseInt(configService.getProperty(HTTP_INITIAL_STREAM_RECV_WINDOW)));
+        }
+        if (configService.getProperty(HTTP_INITIAL_SESSION_RECV_WINDOW) != null) {
+            http2.setInitialSessionRecvWindow(Integer.parseInt(configService.getProperty(HTTP_INITIAL_SESSION_RECV_WINDOW)));
+        }
+        if (configService.getProperty(HTTP_HEADER_TABLE_SIZE) != null) {
+            http2.setMaxDynamicTableSize(Integer.parseInt(configService.getProperty(HTTP_HEADER_TABLE_SIZE)));
+        }
+        log.info("\t" + http2.getProtocol() + " maxConcurrentStreams: " + http2.getMaxConcurrentStreams());
+        log.info("\t" + http2.getProtocol() + " initialStreamRecvWindow: " + http2.getInitialStreamRecvWindow());
+        log.info("\t" + http2.getProtocol() + " initialSessionRecvWindow: " + http2.getInitialSessionRecvWindow());
+        log.info("\t" + http2.getProtocol() + " headerTableSize: " + http2.getMaxDynamicTableSize());
+        return http2;
     }
 
     private void addServlets(ServiceRegistry serviceRegistry) {
-        serviceRegistry.getAll().values().stream().forEach(service -> {
+        // the lazy services are only activated if they are servlets
+        serviceRegistry.find(Servlet.class::isAssignableFrom).forEach(service -> {
             if (service instanceof Servlet) {
                 if (!service.properties().containsKey("contextPath")) {
                     log.warning("Servlet " + service.getClass().getName() + " doesn't have contextPath property");
@@ -160,7 +785,7 @@ public class JettyWebContainerService implements Service, AutoCloseable {
                     Servlet servlet = (Servlet) service;
                     String contextPath = service.properties().get("contextPath").toString();
                     log.info("Adding servlet " + servlet.getClass().getName() + " with context " + contextPath);
-                    servlets.addServlet(servlet.getClass(), contextPath);
+                    servlets.addServlet(servlet.getClass(), contextPath).setAsyncSupported(asyncSupported);
                 }
             }
         });
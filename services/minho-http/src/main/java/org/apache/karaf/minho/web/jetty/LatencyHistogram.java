@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free latency histogram, with fixed (cumulative) buckets, exposed in Prometheus text format.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Default buckets upper bounds, in seconds.
+     */
+    public static final double[] DEFAULT_BUCKETS = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+    private final long[] bounds;
+    private final double[] buckets;
+    private final LongAdder[] counts;
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Exponential buckets upper bounds (HDR style, with a constant relative precision).
+     *
+     * @param start the first bucket upper bound, in seconds.
+     * @param factor the factor between two consecutive buckets (greater than 1).
+     * @param count the number of buckets.
+     * @return the buckets upper bounds, in seconds.
+     */
+    public static double[] exponentialBuckets(double start, double factor, int count) {
+        if (start <= 0 || factor <= 1 || count < 1) {
+            throw new IllegalArgumentException("Invalid exponential buckets: start " + start + ", factor " + factor + ", count " + count);
+        }
+        double[] buckets = new double[count];
+        double bound = start;
+        for (int i = 0; i < count; i++) {
+            // rounded to the microsecond for readable bucket labels
+            buckets[i] = Math.round(bound * 1e6) / 1e6;
+            bound *= factor;
+        }
+        return buckets;
+    }
+
+    public LatencyHistogram() {
+        this(DEFAULT_BUCKETS);
+    }
+
+    public LatencyHistogram(double[] buckets) {
+        this.buckets = buckets.clone();
+        this.bounds = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            bounds[i] = (long) (buckets[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+        // last count is the +Inf bucket
+        this.counts = new LongAdder[buckets.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        int index = Arrays.binarySearch(bounds, nanos);
+        // not found: insertion point, the first bucket greater than the latency
+        counts[(index >= 0) ? index : -index - 1].increment();
+        sum.add(nanos);
+    }
+
+    /**
+     * @return the number of recorded latencies.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the sum of the recorded latencies, in milliseconds.
+     */
+    public long getSum() {
+        return TimeUnit.NANOSECONDS.toMillis(sum.sum());
+    }
+
+    /**
+     * Estimate a percentile of the recorded latencies, as the upper bound of the bucket containing the percentile.
+     *
+     * @param quantile the quantile (between 0 and 1, for instance 0.99).
+     * @return the percentile in milliseconds, 0 if no latency has been recorded.
+     */
+    public double getPercentile(double quantile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += counts[i].sum();
+            if (cumulative >= rank) {
+                return buckets[i] * 1000;
+            }
+        }
+        // +Inf bucket
+        return buckets[buckets.length - 1] * 1000;
+    }
+
+    /**
+     * Write the histogram in Prometheus text format.
+     *
+     * @param builder the target builder.
+     * @param name the metric name (the unit being seconds).
+     * @param labels the metric labels (as <code>key="value"</code>, comma separated), or empty.
+     */
+    public void toPrometheus(StringBuilder builder, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i].sum();
+            String le = (i < buckets.length) ? String.format(Locale.ROOT, "%s", buckets[i]) : "+Inf";
+            builder.append(name).append("_bucket{").append(prefix).append("le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+        }
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        builder.append(name).append("_sum").append(suffix).append(' ').append(String.format(Locale.ROOT, "%.6f", sum.sum() / 1e9)).append('\n');
+        builder.append(name).append("_count").append(suffix).append(' ').append(cumulative).append('\n');
+    }
+
+}
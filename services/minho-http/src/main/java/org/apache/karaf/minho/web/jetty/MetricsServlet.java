@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Supplier;
+
+/**
+ * Expose the HTTP metrics (or any metrics provider) in Prometheus text format.
+ */
+public class MetricsServlet extends HttpServlet {
+
+    private final Supplier<String> metrics;
+
+    public MetricsServlet(HttpMetrics metrics) {
+        this(metrics::getPrometheus);
+    }
+
+    /**
+     * @param metrics the metrics provider, in Prometheus text format.
+     */
+    public MetricsServlet(Supplier<String> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(HttpMetrics.PROMETHEUS_CONTENT_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        try (Writer writer = response.getWriter()) {
+            writer.write(metrics.get());
+            writer.flush();
+        }
+    }
+
+}
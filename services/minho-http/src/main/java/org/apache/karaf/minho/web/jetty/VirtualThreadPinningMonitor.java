@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.web.jetty;
+
+import lombok.extern.java.Log;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Monitor the virtual threads pinned on their carrier thread (blocking in a <code>synchronized</code> block or a native call),
+ * using the JFR <code>jdk.VirtualThreadPinned</code> event.
+ * The JFR event stream API is only used by reflection, the monitor is disabled if it's not available (Java &lt; 14,
+ * or <code>jdk.jfr</code> module not present in the runtime image).
+ */
+@Log
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private final LongAdder pinned = new LongAdder();
+    private final LongAdder pinnedTime = new LongAdder();
+    private final AtomicLong maxPinnedTime = new AtomicLong();
+    private AutoCloseable recordingStream;
+
+    /**
+     * Start the monitor.
+     *
+     * @param threshold the min pinned duration to record an event.
+     * @return true if the monitor is started, false if the JFR event stream is not available.
+     */
+    public boolean start(final Duration threshold) {
+        try {
+            final Class<?> streamClass = Class.forName("jdk.jfr.consumer.RecordingStream");
+            final Object stream = streamClass.getConstructor().newInstance();
+            final Object settings = streamClass.getMethod("enable", String.class).invoke(stream, PINNED_EVENT);
+            Class.forName("jdk.jfr.EventSettings").getMethod("withThreshold", Duration.class).invoke(settings, threshold);
+            // the event is not typed, this class must not link against jdk.jfr (optional module)
+            final Method getDuration = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getDuration");
+            final Consumer<Object> onPinned = event -> {
+                try {
+                    record((Duration) getDuration.invoke(event));
+                } catch (final ReflectiveOperationException e) {
+                    log.fine("Can't read virtual thread pinning event duration: " + e);
+                }
+            };
+            streamClass.getMethod("onEvent", String.class, Consumer.class).invoke(stream, PINNED_EVENT, onPinned);
+            streamClass.getMethod("startAsync").invoke(stream);
+            recordingStream = (AutoCloseable) stream;
+            return true;
+        } catch (final Exception e) {
+            log.warning("Can't monitor virtual threads pinning: " + e);
+            return false;
+        }
+    }
+
+    void record(final Duration duration) {
+        final long nanos = duration.toNanos();
+        pinned.increment();
+        pinnedTime.add(nanos);
+        maxPinnedTime.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Retrieve the number of virtual threads pinning events.
+     *
+     * @return the number of pinning events.
+     */
+    public long getPinnedCount() {
+        return pinned.sum();
+    }
+
+    /**
+     * Retrieve the total duration virtual threads have been pinned on their carrier threads.
+     *
+     * @return the total pinned duration, in milliseconds.
+     */
+    public long getPinnedTime() {
+        return Duration.ofNanos(pinnedTime.sum()).toMillis();
+    }
+
+    /**
+     * Retrieve the longest duration a virtual thread has been pinned on its carrier thread.
+     *
+     * @return the max pinned duration, in milliseconds.
+     */
+    public long getMaxPinnedTime() {
+        return Duration.ofNanos(maxPinnedTime.get()).toMillis();
+    }
+
+    @Override
+    public void close() {
+        if (recordingStream != null) {
+            try {
+                recordingStream.close();
+            } catch (final Exception e) {
+                log.warning("Can't stop virtual threads pinning monitor: " + e.getMessage());
+            }
+            recordingStream = null;
+        }
+    }
+
+}
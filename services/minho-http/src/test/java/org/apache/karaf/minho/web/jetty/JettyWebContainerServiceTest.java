@@ -20,13 +20,31 @@ package org.apache.karaf.minho.web.jetty;
 import org.apache.karaf.minho.boot.Minho;
 import org.apache.karaf.minho.boot.service.ConfigService;
 import org.apache.karaf.minho.boot.service.LifeCycleService;
+import org.eclipse.jetty.server.ServerConnector;
 import org.junit.jupiter.api.Assertions;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.Test;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 import java.util.stream.Stream;
 
 public class JettyWebContainerServiceTest {
@@ -87,6 +105,335 @@ public class JettyWebContainerServiceTest {
         minho.close();
     }
 
+    @Test
+    public void bootReport() throws Exception {
+        ConfigService config = new ConfigService();
+        config.getProperties().put("http.bootReportPath", "/boot");
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), webContainerService)).build().start();
+
+        URL url = new URL("http://localhost:8080/boot");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        Assertions.assertTrue(connection.getContentType().startsWith("application/json"));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            String report = reader.readLine();
+            Assertions.assertTrue(report.contains("\"name\":\"minho-http-service\""));
+        }
+
+        minho.close();
+    }
+
+    @Test
+    public void virtualThreads() throws Exception {
+        ConfigService config = new ConfigService();
+        config.getProperties().put("http.threadPool", "virtual");
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), new TestServlet(), webContainerService)).build().start();
+
+        // fallback to platform threads when the JVM doesn't support virtual threads
+        verify("/test");
+        if (webContainerService.getPinningMonitor() != null) {
+            Assertions.assertTrue(webContainerService.getPinningMonitor().getPinnedCount() >= 0);
+        }
+
+        minho.close();
+    }
+
+    @Test
+    public void h2c() throws Exception {
+        ConfigService config = new ConfigService();
+        config.getProperties().put("http.h2c", "true");
+        config.getProperties().put("http.maxConcurrentStreams", "256");
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), new TestServlet(), webContainerService)).build().start();
+
+        Assertions.assertTrue(webContainerService.getServerConnector().getProtocols().contains("h2c"));
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build();
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:8080/test")).build(), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(HttpClient.Version.HTTP_2, response.version());
+        Assertions.assertEquals("<html><head><title>Test</title></head><body>Hello World!</body></html>", response.body().trim());
+
+        minho.close();
+    }
+
+    @Test
+    public void staticContent() throws Exception {
+        Path resources = Files.createTempDirectory("static");
+        Files.writeString(resources.resolve("index.html"), "<html><head><title>Static</title></head><body>" + "Hello World!".repeat(100) + "</body></html>");
+        ConfigService config = new ConfigService();
+        config.getProperties().put("http.staticPath", "/static/*");
+        config.getProperties().put("http.staticResources", resources.toString());
+        config.getProperties().put("http.gzip", "true");
+        config.getProperties().put("http.gzipMinSize", "64");
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), webContainerService)).build().start();
+
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/static/index.html").openConnection();
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+            Assertions.assertEquals(200, connection.getResponseCode());
+            Assertions.assertEquals("gzip", connection.getContentEncoding());
+            String etag = connection.getHeaderField("ETag");
+            Assertions.assertNotNull(etag);
+            Assertions.assertNotNull(connection.getHeaderField("Last-Modified"));
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(connection.getInputStream())))) {
+                Assertions.assertTrue(reader.readLine().startsWith("<html><head><title>Static</title>"));
+            }
+
+            HttpURLConnection conditional = (HttpURLConnection) new URL("http://localhost:8080/static/index.html").openConnection();
+            conditional.setRequestProperty("Accept-Encoding", "gzip");
+            conditional.setRequestProperty("If-None-Match", etag);
+            Assertions.assertEquals(304, conditional.getResponseCode());
+        } finally {
+            minho.close();
+            Files.delete(resources.resolve("index.html"));
+            Files.delete(resources);
+        }
+    }
+
+    @Test
+    public void metrics() throws Exception {
+        ConfigService config = new ConfigService();
+        config.getProperties().put("http.metricsPath", "/metrics");
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), new TestServlet(), webContainerService)).build().start();
+
+        verify("/test");
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/metrics").openConnection();
+        Assertions.assertTrue(connection.getContentType().startsWith("text/plain"));
+        StringBuilder metrics = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                metrics.append(line).append('\n');
+            }
+        }
+        Assertions.assertTrue(metrics.toString().contains("# TYPE minho_http_request_duration_seconds histogram"));
+        Assertions.assertTrue(metrics.toString().contains("minho_http_responses_total{status=\"2xx\"} 1"));
+        Assertions.assertTrue(metrics.toString().contains("minho_http_threads_max 200"));
+        Assertions.assertTrue(webContainerService.getMetrics().getRequests() >= 2);
+        Assertions.assertTrue(webContainerService.getMetrics().getSelectors() > 0);
+
+        minho.close();
+    }
+
+    @Test
+    public void listenersMetrics() throws Exception {
+        ConfigService config = new ConfigService();
+        config.getProperties().put("http.metricsPath", "/metrics");
+        config.getProperties().put("http.listeners", "2");
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), new TestServlet(), webContainerService)).build().start();
+
+        try {
+            verify("/test");
+
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/metrics").openConnection();
+            List<String> selectors = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("minho_http_selectors{")) {
+                        selectors.add(line.substring(0, line.indexOf('}') + 1));
+                    }
+                }
+            }
+            // one series by listener
+            Assertions.assertEquals(List.of("minho_http_selectors{connector=\"default-0\"}", "minho_http_selectors{connector=\"default-1\"}"), selectors);
+        } finally {
+            minho.close();
+        }
+    }
+
+    @Test
+    public void gracefulShutdown() throws Exception {
+        ConfigService config = new ConfigService();
+        config.getProperties().put("http.stopTimeout", "10000");
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), webContainerService)).build().start();
+        webContainerService.addServlet(SlowServlet.class, "/slow");
+
+        CompletableFuture<Integer> inFlight = CompletableFuture.supplyAsync(() -> {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/slow").openConnection();
+                return connection.getResponseCode();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Assertions.assertTrue(SlowServlet.STARTED.await(10, TimeUnit.SECONDS));
+
+        minho.close();
+
+        // the in-flight request completed before the server stopped
+        Assertions.assertEquals(200, inFlight.get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, webContainerService.getGracefulShutdownHandler().getInFlight());
+        Assertions.assertEquals(1, webContainerService.getGracefulShutdownHandler().getDrained());
+        Assertions.assertEquals(0, webContainerService.getGracefulShutdownHandler().getActive());
+    }
+
+    @Test
+    public void liveUpdate() throws Exception {
+        ConfigService config = new ConfigService();
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), new TestServlet(), webContainerService)).build().start();
+
+        try {
+            webContainerService.setMaxThreads(50);
+            webContainerService.setMinThreads(4);
+            Assertions.assertEquals(50, webContainerService.getMaxThreads());
+            Assertions.assertEquals(4, webContainerService.getMinThreads());
+
+            int mainPort = webContainerService.getServerConnector().getLocalPort();
+            webContainerService.setAcceptQueueSize(64);
+            Assertions.assertEquals(64, webContainerService.getServerConnector().getAcceptQueueSize());
+            // the listening socket is not rebound
+            Assertions.assertEquals(mainPort, webContainerService.getServerConnector().getLocalPort());
+            verify("/test");
+
+            ServerConnector added = webContainerService.addConnector("127.0.0.1", 0);
+            Assertions.assertEquals(64, added.getAcceptQueueSize());
+            int port = added.getLocalPort();
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/test").openConnection();
+            Assertions.assertEquals(200, connection.getResponseCode());
+            Assertions.assertTrue(webContainerService.removeConnector(port));
+            Assertions.assertEquals(1, webContainerService.getServer().getConnectors().length);
+
+            // config reload
+            config.reload(Map.of(), Map.of("http.maxThreads", "100"));
+            Assertions.assertEquals(100, webContainerService.getMaxThreads());
+        } finally {
+            minho.close();
+        }
+    }
+
+    @Test
+    public void multipleConnectors() throws Exception {
+        ConfigService config = new ConfigService();
+        config.getProperties().put("http.listeners", "2");
+        config.getProperties().put("http.connectors", "internal,admin");
+        config.getProperties().put("http.connector.internal.port", "8181");
+        config.getProperties().put("http.connector.internal.listeners", "2");
+        config.getProperties().put("http.connector.admin.port", "8282");
+        config.getProperties().put("http.connector.admin.host", "127.0.0.1");
+        config.getProperties().put("http.connector.admin.acceptors", "1");
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), new TestServlet(), webContainerService)).build().start();
+
+        try {
+            Assertions.assertEquals(5, webContainerService.getServer().getConnectors().length);
+            Assertions.assertTrue(webContainerService.getServerConnector().isReusePort());
+            for (int port : new int[]{ 8080, 8181, 8282 }) {
+                HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/test").openConnection();
+                Assertions.assertEquals(200, connection.getResponseCode());
+            }
+        } finally {
+            minho.close();
+        }
+    }
+
+    @Test
+    public void concurrencyLimit() throws Exception {
+        ConfigService config = new ConfigService();
+        config.getProperties().put("http.metricsPath", "/metrics");
+        config.getProperties().put("http.limits", "blocking");
+        config.getProperties().put("http.limit.blocking.path", "/blocking/*");
+        config.getProperties().put("http.limit.blocking.maxConcurrency", "1");
+        config.getProperties().put("http.limit.blocking.retryAfter", "5");
+        JettyWebContainerService webContainerService = new JettyWebContainerService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(config, new LifeCycleService(), new TestServlet(), webContainerService)).build().start();
+        webContainerService.addServlet(BlockingServlet.class, "/blocking/*");
+
+        try {
+            CompletableFuture<Integer> blocked = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return ((HttpURLConnection) new URL("http://localhost:8080/blocking/first").openConnection()).getResponseCode();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            Assertions.assertTrue(BlockingServlet.STARTED.await(10, TimeUnit.SECONDS));
+
+            HttpURLConnection shed = (HttpURLConnection) new URL("http://localhost:8080/blocking/second").openConnection();
+            Assertions.assertEquals(503, shed.getResponseCode());
+            Assertions.assertEquals("5", shed.getHeaderField("Retry-After"));
+            // the route is matched on the decoded path
+            HttpURLConnection encoded = (HttpURLConnection) new URL("http://localhost:8080/%62locking/third").openConnection();
+            Assertions.assertEquals(503, encoded.getResponseCode());
+            // other routes are not limited
+            verify("/test");
+
+            BlockingServlet.RELEASE.countDown();
+            Assertions.assertEquals(200, blocked.get(10, TimeUnit.SECONDS));
+            Assertions.assertEquals(2, webContainerService.getMetrics().getShedRequests());
+        } finally {
+            BlockingServlet.RELEASE.countDown();
+            minho.close();
+        }
+    }
+
+    @Test
+    public void adaptiveConcurrencyLimit() {
+        ConcurrencyLimit limit = new ConcurrencyLimit("adaptive", "/api/*", 2, 10, true, 100, 1);
+        Assertions.assertTrue(limit.matches("/api/test"));
+        Assertions.assertFalse(limit.matches("/apitest"));
+        Assertions.assertEquals(2, limit.getLimit());
+
+        // fast requests using the limit increase it
+        for (int i = 0; i < 10; i++) {
+            int current = limit.getLimit();
+            for (int j = 0; j < current; j++) {
+                Assertions.assertTrue(limit.tryAcquire());
+            }
+            Assertions.assertFalse(limit.tryAcquire());
+            for (int j = 0; j < current; j++) {
+                limit.release(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        Assertions.assertEquals(10, limit.getLimit());
+
+        // slow request decreases it
+        Assertions.assertTrue(limit.tryAcquire());
+        limit.release(TimeUnit.SECONDS.toNanos(1));
+        Assertions.assertEquals(9, limit.getLimit());
+    }
+
+    public static class BlockingServlet extends HttpServlet {
+
+        static final CountDownLatch STARTED = new CountDownLatch(1);
+        static final CountDownLatch RELEASE = new CountDownLatch(1);
+
+        @Override
+        public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            STARTED.countDown();
+            try {
+                RELEASE.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.getWriter().write("blocking");
+        }
+
+    }
+
+    public static class SlowServlet extends HttpServlet {
+
+        static final CountDownLatch STARTED = new CountDownLatch(1);
+
+        @Override
+        public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            STARTED.countDown();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.getWriter().write("slow");
+        }
+
+    }
+
     private void verify(String path) throws Exception {
         URL url = new URL("http://localhost:8080" + path);
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.jmx;
+
+/**
+ * Boot report MBean, exposing the runtime boot timings.
+ */
+public interface BootReportMBean {
+
+    /**
+     * @return the runtime boot time in milliseconds (-1 if not started).
+     */
+    long getStartupTime();
+
+    /**
+     * @return the boot report (timings of services registration, lifecycle callbacks and class loaders) as JSON.
+     */
+    String getReport();
+
+}
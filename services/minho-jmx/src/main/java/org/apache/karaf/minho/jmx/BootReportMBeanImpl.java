@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.jmx;
+
+import org.apache.karaf.minho.boot.service.BootReport;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.StandardMBean;
+
+public class BootReportMBeanImpl extends StandardMBean implements BootReportMBean {
+
+    private final BootReport bootReport;
+
+    public BootReportMBeanImpl(BootReport bootReport) throws NotCompliantMBeanException {
+        super(BootReportMBean.class);
+        this.bootReport = bootReport;
+    }
+
+    @Override
+    public long getStartupTime() {
+        return bootReport.getStartupTime();
+    }
+
+    @Override
+    public String getReport() {
+        return bootReport.toJson();
+    }
+
+}
@@ -26,8 +26,10 @@ import org.apache.karaf.minho.boot.spi.Service;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 
 @Log
@@ -40,6 +42,11 @@ public class JmxService implements Service {
         return "minho-jmx-service";
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return Arrays.asList(ConfigService.class, LifeCycleService.class);
+    }
+
     @Override
     public void onRegister(ServiceRegistry serviceRegistry) throws Exception {
         ConfigService configService = serviceRegistry.get(ConfigService.class);
@@ -70,6 +77,12 @@ public class JmxService implements Service {
 
         mBeanServer = mBeanServerFactory.getServer();
 
+        boolean bootReport = Boolean.parseBoolean(configService.getProperty("jmx.bootReport", "true"));
+        ObjectName bootReportName = new ObjectName(configService.getProperty("jmx.bootReportObjectName", "org.apache.karaf.minho:type=boot,name=report"));
+        if (bootReport) {
+            registerMBean(new BootReportMBeanImpl(serviceRegistry.getBootReport()), bootReportName);
+        }
+
         final ConnectorServerFactory connectorServerFactory = new ConnectorServerFactory();
         connectorServerFactory.setCreate(createRmiRegistry);
         connectorServerFactory.setLocate(locateRmiRegistry);
@@ -84,7 +97,7 @@ public class JmxService implements Service {
         Map<String, Object> environment = new HashMap<>();
         connectorServerFactory.setEnvironment(environment);
 
-        lifeCycleService.onStart(() -> {
+        lifeCycleService.onStart(LifeCycleService.INFRASTRUCTURE, () -> {
             try {
                 connectorServerFactory.init();
             } catch (Throwable e) {
@@ -92,7 +105,14 @@ public class JmxService implements Service {
             }
         });
 
-        lifeCycleService.onShutdown(() -> {
+        lifeCycleService.onShutdown(LifeCycleService.INFRASTRUCTURE, () -> {
+            if (bootReport) {
+                try {
+                    unregisterMBean(bootReportName);
+                } catch (Exception e) {
+                    log.warning("Error unregistering boot report MBean: " + e.getMessage());
+                }
+            }
             if (connectorServerFactory != null) {
                 try {
                     connectorServerFactory.destroy();
@@ -112,7 +132,35 @@ public class JmxService implements Service {
     }
 
     public void registerMBean(Object mbean, String name) throws Exception {
-        mBeanServer.registerMBean(mbean, new ObjectName(name));
+        registerMBean(mbean, new ObjectName(name));
+    }
+
+    /**
+     * Register a MBean, replacing the MBean already registered with the same name.
+     *
+     * @param mbean the MBean.
+     * @param objectName the MBean name.
+     * @throws Exception if the MBean can't be registered.
+     */
+    public void registerMBean(Object mbean, ObjectName objectName) throws Exception {
+        if (mBeanServer.isRegistered(objectName)) {
+            // previous runtime in the same JVM (shared platform MBean server)
+            mBeanServer.unregisterMBean(objectName);
+        }
+        log.info("Registering MBean " + objectName);
+        mBeanServer.registerMBean(mbean, objectName);
+    }
+
+    /**
+     * Unregister a MBean, if registered.
+     *
+     * @param objectName the MBean name.
+     * @throws Exception if the MBean can't be unregistered.
+     */
+    public void unregisterMBean(ObjectName objectName) throws Exception {
+        if (mBeanServer.isRegistered(objectName)) {
+            mBeanServer.unregisterMBean(objectName);
+        }
     }
 
     public MBeanServer getmBeanServer() {
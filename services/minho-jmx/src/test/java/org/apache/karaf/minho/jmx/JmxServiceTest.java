@@ -47,4 +47,16 @@ public class JmxServiceTest {
         Assertions.assertEquals("test", echo);
     }
 
+    @Test
+    public void bootReport() throws Exception {
+        Minho minho = Minho.builder().loader(() -> Stream.of(new ConfigService(), new LifeCycleService(), new JmxService())).build().start();
+
+        MBeanServer mBeanServer = minho.getServiceRegistry().get(JmxService.class).getmBeanServer();
+
+        String report = (String) mBeanServer.getAttribute(new ObjectName("org.apache.karaf.minho:type=boot,name=report"), "Report");
+        Assertions.assertTrue(report.contains("\"name\":\"minho-jmx-service\""));
+
+        minho.close();
+    }
+
 }
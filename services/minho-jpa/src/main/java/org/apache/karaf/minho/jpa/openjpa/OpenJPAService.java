@@ -22,6 +22,8 @@ import org.apache.karaf.minho.boot.service.ServiceRegistry;
 import org.apache.karaf.minho.boot.spi.Service;
 
 import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
 
 @Log
 public class OpenJPAService implements Service {
@@ -33,6 +35,11 @@ public class OpenJPAService implements Service {
         return "minho-jpa-service";
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return Collections.emptyList();
+    }
+
     @Override
     public void onRegister(ServiceRegistry serviceRegistry) {
         log.info("Starting OpenJPA engine ...");
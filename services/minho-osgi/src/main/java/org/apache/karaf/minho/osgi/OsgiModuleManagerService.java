@@ -35,6 +35,7 @@ import org.osgi.framework.startlevel.FrameworkStartLevel;
 import java.net.URL;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarInputStream;
@@ -67,6 +68,11 @@ public class OsgiModuleManagerService implements Service {
         return DEFAULT_PRIORITY + 99;
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return List.of(ConfigService.class, LifeCycleService.class);
+    }
+
     @Override
     public void onRegister(final ServiceRegistry serviceRegistry) throws Exception {
         log.info("Starting OSGi module manager service");
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Cache the responses of the annotated GET resource method (or all GET methods of the annotated resource class)
+ * in the REST response cache.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cached {
+
+    /**
+     * Time to live (in seconds) of the cached responses, when the response doesn't define <code>Cache-Control</code>
+     * <code>max-age</code>. Default is <code>-1</code>, using the <code>rest.cacheTtl</code> configuration.
+     *
+     * @return the time to live in seconds.
+     */
+    long ttl() default -1;
+
+    /**
+     * Request headers part of the cache key (in addition to the path and query).
+     * Default is empty, using the <code>rest.cacheHeaders</code> configuration.
+     *
+     * @return the request headers name.
+     */
+    String[] headers() default {};
+
+}
@@ -17,28 +17,80 @@
  */
 package org.apache.karaf.minho.rest.jersey;
 
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.ext.Provider;
 import lombok.extern.java.Log;
 import org.apache.karaf.minho.boot.service.ConfigService;
+import org.apache.karaf.minho.boot.service.LifeCycleService;
 import org.apache.karaf.minho.boot.service.ServiceRegistry;
 import org.apache.karaf.minho.boot.spi.Service;
+import org.apache.karaf.minho.jmx.JmxService;
 import org.apache.karaf.minho.web.jetty.JettyWebContainerService;
+import org.apache.karaf.minho.web.jetty.MetricsServlet;
 import org.eclipse.jetty.servlet.ServletHolder;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.ServerProperties;
 import org.glassfish.jersey.servlet.ServletContainer;
 
+import javax.management.ObjectName;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
 @Log
 public class JerseyRestService implements Service {
 
     public final static String REST_PATH = "rest.path";
     public final static String REST_PACKAGES = "rest.packages";
+    public final static String REST_ASYNC_THREADS = "rest.asyncThreads";
+    public final static String REST_RESOURCES = "rest.resources";
+    public final static String REST_WADL = "rest.wadl";
+    public final static String REST_JSON = "rest.json";
+    public final static String REST_BUFFER_SIZE = "rest.bufferSize";
+    public final static String REST_CACHE = "rest.cache";
+    public final static String REST_CACHE_MAX_SIZE = "rest.cacheMaxSize";
+    public final static String REST_CACHE_TTL = "rest.cacheTtl";
+    public final static String REST_CACHE_HEADERS = "rest.cacheHeaders";
+    public final static String REST_CACHE_WAIT = "rest.cacheWait";
+    public final static String REST_METRICS = "rest.metrics";
+    public final static String REST_METRICS_PATH = "rest.metricsPath";
+    public final static String REST_METRICS_JMX = "rest.metricsJmx";
+    public final static String REST_METRICS_OBJECT_NAME = "rest.metricsObjectName";
+    public final static String REST_TRACING = "rest.tracing";
+    public final static String REST_INDEX = "META-INF/minho/rest-resources.index";
+
+    // index header line listing the indexed packages
+    private final static String REST_INDEX_PACKAGES = "# packages=";
+
+    // Jersey property selecting the JSON feature (only the Jackson feature is enabled when not set)
+    private final static String JSON_FEATURE = "jersey.config.jsonFeature";
 
     private String restPath;
     private String restPackages;
+    private String restResources;
+    private ExecutorService asyncExecutor;
+    private ResponseCache responseCache;
+    private ResourceMetrics metrics;
 
     @Override
     public String name() {
         return "minho-rest-service";
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return List.of(ConfigService.class, LifeCycleService.class, JettyWebContainerService.class);
+    }
+
     @Override
     public void onRegister(ServiceRegistry serviceRegistry) throws Exception {
         ConfigService config = serviceRegistry.get(ConfigService.class);
@@ -53,18 +105,215 @@ public class JerseyRestService implements Service {
         }
 
         restPath = (config != null && config.getProperty(REST_PATH) != null) ? config.getProperty(REST_PATH) : "/rest/*";
-        if (config != null && config.getProperty(REST_PACKAGES) != null) {
-            restPackages = config.getProperty(REST_PACKAGES);
-        } else {
-            throw new IllegalStateException("rest.packages configuration is not found in the ConfigService");
-        }
+        restPackages = (config != null) ? config.getProperty(REST_PACKAGES) : null;
+        restResources = (config != null) ? config.getProperty(REST_RESOURCES) : null;
+        boolean wadl = config != null && Boolean.parseBoolean(config.getProperty(REST_WADL, "false"));
+        String json = (config != null && config.getProperty(REST_JSON) != null) ? config.getProperty(REST_JSON) : "jackson";
+        int bufferSize = (config != null && config.getProperty(REST_BUFFER_SIZE) != null) ? Integer.parseInt(config.getProperty(REST_BUFFER_SIZE)) : -1;
+        boolean cache = config == null || Boolean.parseBoolean(config.getProperty(REST_CACHE, "true"));
+        boolean metricsEnabled = config != null && Boolean.parseBoolean(config.getProperty(REST_METRICS, "false"));
+        boolean tracing = config != null && Boolean.parseBoolean(config.getProperty(REST_TRACING, "false"));
+        int asyncThreads = (config != null && config.getProperty(REST_ASYNC_THREADS) != null) ? Integer.parseInt(config.getProperty(REST_ASYNC_THREADS)) : 0;
 
         log.info("Starting minho-rest-service");
         log.info("\tpath: " + restPath);
         log.info("\tpackages: " + restPackages);
-        ServletHolder servletHolder = webContainerService.addServlet(ServletContainer.class, restPath);
+        log.info("\tresources: " + restResources);
+        log.info("\twadl: " + wadl);
+        log.info("\tjson: " + json);
+        log.info("\tbufferSize: " + ((bufferSize >= 0) ? bufferSize : "default"));
+        log.info("\tasyncThreads: " + asyncThreads);
+        log.info("\tcache: " + cache);
+        log.info("\tmetrics: " + metricsEnabled);
+        log.info("\ttracing: " + tracing);
+
+        if (restPackages == null && restResources == null) {
+            log.warning("No rest.packages or rest.resources configuration, only the REST services from the registry are registered");
+        }
+
+        ResourceConfig resourceConfig = new ResourceConfig();
+        resourceConfig.property(ServerProperties.WADL_FEATURE_DISABLE, !wadl);
+        if (bufferSize >= 0) {
+            // size of the buffer used to compute the Content-Length, 0 streams the entities directly (chunked)
+            resourceConfig.property(ServerProperties.OUTBOUND_CONTENT_LENGTH_BUFFER, bufferSize);
+        }
+        if (metricsEnabled || tracing) {
+            metrics = new ResourceMetrics();
+            resourceConfig.register(new ResourceMetricsFeature(metrics, tracing));
+        }
+        if (cache) {
+            registerResponseCache(resourceConfig, config);
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        registerJsonProvider(resourceConfig, json, classLoader);
+        if (restResources != null) {
+            for (String resource : restResources.split(",")) {
+                if (!resource.trim().isEmpty()) {
+                    resourceConfig.register(classLoader.loadClass(resource.trim()));
+                }
+            }
+        }
+        if (restPackages != null) {
+            List<String> index = readIndex(classLoader, restPackages);
+            if (index != null) {
+                // resources index generated by the tooling for the packages, no packages scanning
+                log.info("Using REST resources index (" + index.size() + " resources)");
+                for (String resource : index) {
+                    resourceConfig.register(classLoader.loadClass(resource));
+                }
+            } else {
+                resourceConfig.packages(restPackages);
+            }
+        }
+
+        LifeCycleService lifeCycleService = serviceRegistry.get(LifeCycleService.class);
+        if (lifeCycleService != null) {
+            // all services are registered, before the HTTP service start (initializing the REST servlet)
+            lifeCycleService.onStart(LifeCycleService.APPLICATIONS, () -> registerServices(serviceRegistry, resourceConfig));
+        } else {
+            registerServices(serviceRegistry, resourceConfig);
+        }
+
+        if (asyncThreads > 0) {
+            // executor running the @ManagedAsync resources, and usable by the resources for CompletionStage
+            AtomicInteger counter = new AtomicInteger();
+            asyncExecutor = Executors.newFixedThreadPool(asyncThreads, runnable -> {
+                Thread thread = new Thread(runnable, "minho-rest-async-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            resourceConfig.register(new AsyncExecutorProvider(asyncExecutor));
+            if (lifeCycleService != null) {
+                lifeCycleService.onShutdown(LifeCycleService.APPLICATIONS, () -> {
+                    asyncExecutor.shutdown();
+                    try {
+                        asyncExecutor.awaitTermination(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+
+        if (metrics != null) {
+            registerMetrics(serviceRegistry, config, webContainerService, lifeCycleService);
+        }
+
+        // async supported servlet: @Suspended AsyncResponse, CompletionStage and SSE resources don't hold the HTTP thread
+        // eager initialization (init order), the Jersey application is ready when the HTTP service starts
+        ServletHolder servletHolder = webContainerService.addServlet(new ServletContainer(resourceConfig), restPath);
         servletHolder.setInitOrder(1);
-        servletHolder.setInitParameter("jersey.config.server.provider.packages", restPackages);
+    }
+
+    /**
+     * Expose the resources metrics with the HTTP endpoint (<code>rest.metricsPath</code>) and the MBean.
+     */
+    private void registerMetrics(ServiceRegistry serviceRegistry, ConfigService config, JettyWebContainerService webContainerService, LifeCycleService lifeCycleService) throws Exception {
+        String metricsPath = (config != null) ? config.getProperty(REST_METRICS_PATH) : null;
+        if (metricsPath != null && !metricsPath.isEmpty()) {
+            log.info("Adding REST metrics servlet with context " + metricsPath);
+            webContainerService.addServlet(new MetricsServlet(metrics::getPrometheus), metricsPath);
+        }
+        boolean metricsJmx = config == null || Boolean.parseBoolean(config.getProperty(REST_METRICS_JMX, "true"));
+        if (!metricsJmx || lifeCycleService == null) {
+            return;
+        }
+        String metricsObjectName = "org.apache.karaf.minho:type=rest,name=metrics";
+        if (config != null && config.getProperty(REST_METRICS_OBJECT_NAME) != null) {
+            metricsObjectName = config.getProperty(REST_METRICS_OBJECT_NAME);
+        }
+        try {
+            Class.forName("org.apache.karaf.minho.jmx.JmxService", false, JerseyRestService.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            // minho-jmx is not present
+            return;
+        }
+        ObjectName metricsName = new ObjectName(metricsObjectName);
+        lifeCycleService.onStart(LifeCycleService.APPLICATIONS, () -> {
+            JmxService jmxService = serviceRegistry.get(JmxService.class);
+            if (jmxService != null) {
+                try {
+                    jmxService.registerMBean(metrics, metricsName);
+                } catch (Exception e) {
+                    log.warning("Can't register REST metrics MBean: " + e.getMessage());
+                }
+            }
+        });
+        lifeCycleService.onShutdown(LifeCycleService.APPLICATIONS, () -> {
+            JmxService jmxService = serviceRegistry.get(JmxService.class);
+            if (jmxService != null) {
+                try {
+                    jmxService.unregisterMBean(metricsName);
+                } catch (Exception e) {
+                    log.warning("Can't unregister REST metrics MBean: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Register the response cache, used by the GET resources annotated with {@link Cached}.
+     */
+    private void registerResponseCache(ResourceConfig resourceConfig, ConfigService config) {
+        long maxSize = (config != null && config.getProperty(REST_CACHE_MAX_SIZE) != null) ? Long.parseLong(config.getProperty(REST_CACHE_MAX_SIZE)) : 16777216L;
+        long ttl = (config != null && config.getProperty(REST_CACHE_TTL) != null) ? Long.parseLong(config.getProperty(REST_CACHE_TTL)) : 60L;
+        String headers = (config != null && config.getProperty(REST_CACHE_HEADERS) != null) ? config.getProperty(REST_CACHE_HEADERS) : "Accept,Accept-Language";
+        long wait = (config != null && config.getProperty(REST_CACHE_WAIT) != null) ? Long.parseLong(config.getProperty(REST_CACHE_WAIT)) : 1000L;
+        log.info("\tcacheMaxSize: " + maxSize);
+        log.info("\tcacheTtl: " + ttl);
+        log.info("\tcacheHeaders: " + headers);
+        List<String> keyHeaders = Arrays.stream(headers.split(",")).map(String::trim).filter(header -> !header.isEmpty()).collect(Collectors.toList());
+        responseCache = new ResponseCache(maxSize);
+        resourceConfig.register(new ResponseCacheFeature(responseCache, ttl, keyHeaders, wait));
+    }
+
+    /**
+     * Register the JSON provider: <code>jackson</code> (Jersey Jackson feature), <code>streaming</code>
+     * ({@link StreamingJsonProvider}) or the class name of a custom JSON provider.
+     */
+    private static void registerJsonProvider(ResourceConfig resourceConfig, String json, ClassLoader classLoader) throws ClassNotFoundException {
+        if ("jackson".equalsIgnoreCase(json)) {
+            return;
+        }
+        Class<?> provider = "streaming".equalsIgnoreCase(json) ? StreamingJsonProvider.class : classLoader.loadClass(json);
+        // disable the auto discovered Jackson feature, the provider replaces it
+        resourceConfig.property(JSON_FEATURE, provider.getSimpleName());
+        resourceConfig.register(provider);
+    }
+
+    /**
+     * Register the services annotated with <code>@Path</code> or <code>@Provider</code> as REST resources (singletons).
+     */
+    private void registerServices(ServiceRegistry serviceRegistry, ResourceConfig resourceConfig) {
+        // the lazy services are only activated if they are REST resources or providers
+        serviceRegistry.find(type -> type.isAnnotationPresent(Path.class) || type.isAnnotationPresent(Provider.class))
+                .forEach(service -> {
+                    log.info("Registering REST resource " + service.name());
+                    try {
+                        resourceConfig.register(service);
+                    } catch (IllegalStateException e) {
+                        // the REST servlet is already initialized
+                        log.warning("Can't register REST resource " + service.name() + ": " + e.getMessage());
+                    }
+                });
+    }
+
+    private static List<String> readIndex(ClassLoader classLoader, String restPackages) throws IOException {
+        URL index = classLoader.getResource(REST_INDEX);
+        if (index == null) {
+            return null;
+        }
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+            lines = reader.lines().map(String::trim).filter(line -> !line.isEmpty()).collect(Collectors.toList());
+        }
+        // the index is built for the rest.packages at build time, ignored if they changed
+        String packages = Arrays.stream(restPackages.split("[,;\\s]+")).filter(restPackage -> !restPackage.isEmpty()).sorted().distinct().collect(Collectors.joining(","));
+        if (lines.isEmpty() || !lines.get(0).equals(REST_INDEX_PACKAGES + packages)) {
+            log.info("REST resources index doesn't match rest.packages, scanning the packages");
+            return null;
+        }
+        return lines.subList(1, lines.size());
     }
 
     public String getRestPath() {
@@ -75,4 +324,36 @@ public class JerseyRestService implements Service {
         return this.restPackages;
     }
 
+    public String getRestResources() {
+        return this.restResources;
+    }
+
+    /**
+     * Retrieve the REST async executor (running the <code>@ManagedAsync</code> resources), that resources can use
+     * to complete <code>CompletionStage</code> or <code>AsyncResponse</code>.
+     *
+     * @return the async executor, or <code>null</code> if <code>rest.asyncThreads</code> is not defined (Jersey default executor).
+     */
+    public ExecutorService getAsyncExecutor() {
+        return this.asyncExecutor;
+    }
+
+    /**
+     * Retrieve the response cache of the GET resources annotated with {@link Cached}.
+     *
+     * @return the response cache, or <code>null</code> if <code>rest.cache</code> is <code>false</code>.
+     */
+    public ResponseCache getResponseCache() {
+        return this.responseCache;
+    }
+
+    /**
+     * Retrieve the latency metrics of the resource methods.
+     *
+     * @return the resources metrics, or <code>null</code> if <code>rest.metrics</code> and <code>rest.tracing</code> are <code>false</code>.
+     */
+    public ResourceMetrics getMetrics() {
+        return this.metrics;
+    }
+
 }
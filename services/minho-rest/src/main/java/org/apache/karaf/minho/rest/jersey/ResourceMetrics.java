@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import org.apache.karaf.minho.web.jetty.LatencyHistogram;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Latency histograms of the REST resource methods, by response status class.
+ * The histograms are created when the resources are registered, the recording is lock free.
+ */
+public class ResourceMetrics implements ResourceMetricsMBean {
+
+    /**
+     * Histograms buckets, in seconds: from 0.5ms to 28s, with a 25% relative precision.
+     */
+    public static final double[] BUCKETS = LatencyHistogram.exponentialBuckets(0.0005, 1.25, 50);
+
+    private static final String[] STATUS = { "1xx", "2xx", "3xx", "4xx", "5xx" };
+
+    private final Map<String, Resource> resources = new ConcurrentSkipListMap<>();
+
+    /**
+     * Register a resource method (the histograms are shared by the resource methods with the same name).
+     *
+     * @param name the resource method name (<code>Class.method</code>).
+     * @param method the HTTP method.
+     * @param path the resource path template.
+     * @return the resource method metrics.
+     */
+    public Resource register(String name, String method, String path) {
+        return resources.computeIfAbsent(name, key -> new Resource(name, method, path));
+    }
+
+    @Override
+    public String[] getResources() {
+        return resources.keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public String[] getSummary() {
+        return resources.values().stream().flatMap(resource -> {
+            Stream.Builder<String> lines = Stream.builder();
+            for (int i = 0; i < STATUS.length; i++) {
+                LatencyHistogram histogram = resource.histograms[i];
+                long count = histogram.getCount();
+                if (count > 0) {
+                    lines.add(String.format(Locale.ROOT, "%s %s %s %s count=%d p50=%.3fms p99=%.3fms p999=%.3fms",
+                            resource.name, resource.method, resource.path, STATUS[i], count,
+                            histogram.getPercentile(0.5), histogram.getPercentile(0.99), histogram.getPercentile(0.999)));
+                }
+            }
+            return lines.build();
+        }).toArray(String[]::new);
+    }
+
+    @Override
+    public long count(String resource, String status) {
+        LatencyHistogram histogram = histogram(resource, status);
+        return (histogram != null) ? histogram.getCount() : 0;
+    }
+
+    @Override
+    public double percentile(String resource, String status, double quantile) {
+        LatencyHistogram histogram = histogram(resource, status);
+        return (histogram != null) ? histogram.getPercentile(quantile) : 0;
+    }
+
+    private LatencyHistogram histogram(String resource, String status) {
+        Resource metrics = resources.get(resource);
+        if (metrics == null) {
+            return null;
+        }
+        for (int i = 0; i < STATUS.length; i++) {
+            if (STATUS[i].equalsIgnoreCase(status)) {
+                return metrics.histograms[i];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String getPrometheus() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("# HELP minho_rest_request_duration_seconds REST resource methods latency.\n");
+        builder.append("# TYPE minho_rest_request_duration_seconds histogram\n");
+        for (Resource resource : resources.values()) {
+            for (int i = 0; i < STATUS.length; i++) {
+                LatencyHistogram histogram = resource.histograms[i];
+                if (histogram.getCount() > 0) {
+                    String labels = "resource=\"" + resource.name + "\",method=\"" + resource.method
+                            + "\",path=\"" + resource.path.replace("\\", "\\\\").replace("\"", "\\\"") + "\",status=\"" + STATUS[i] + "\"";
+                    histogram.toPrometheus(builder, "minho_rest_request_duration_seconds", labels);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Metrics of a resource method: one latency histogram by status class.
+     */
+    public static class Resource {
+
+        private final String name;
+        private final String method;
+        private final String path;
+        private final LatencyHistogram[] histograms = new LatencyHistogram[STATUS.length];
+
+        Resource(String name, String method, String path) {
+            this.name = name;
+            this.method = method;
+            this.path = path;
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram(BUCKETS);
+            }
+        }
+
+        /**
+         * Record a request latency.
+         *
+         * @param status the response status.
+         * @param nanos the latency in nanoseconds.
+         */
+        public void record(int status, long nanos) {
+            int index = status / 100 - 1;
+            if (index >= 0 && index < histograms.length) {
+                histograms[index].record(nanos);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+    }
+
+}
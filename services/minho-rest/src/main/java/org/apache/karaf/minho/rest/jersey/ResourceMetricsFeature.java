@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.DynamicFeature;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.FeatureContext;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+/**
+ * Register the metrics (and tracing) filter on each resource method. As application event listener, it records the
+ * latency when the requests finish.
+ */
+public class ResourceMetricsFeature implements DynamicFeature, ApplicationEventListener {
+
+    private static final RequestEventListener FINISHED = event -> {
+        if (event.getType() == RequestEvent.Type.FINISHED) {
+            ContainerResponse response = event.getContainerResponse();
+            ResourceMetricsFilter.finished(event.getContainerRequest(), (response != null) ? response.getStatus() : 500);
+        }
+    };
+
+    private final ResourceMetrics metrics;
+    private final boolean tracing;
+
+    public ResourceMetricsFeature(ResourceMetrics metrics, boolean tracing) {
+        this.metrics = metrics;
+        this.tracing = tracing;
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        Method method = resourceInfo.getResourceMethod();
+        Class<?> resourceClass = resourceInfo.getResourceClass();
+        if (method == null || resourceClass == null) {
+            return;
+        }
+        String httpMethod = "*";
+        for (Annotation annotation : method.getAnnotations()) {
+            HttpMethod designator = annotation.annotationType().getAnnotation(HttpMethod.class);
+            if (designator != null) {
+                httpMethod = designator.value();
+            }
+        }
+        String path = path(resourceClass.getAnnotation(Path.class), method.getAnnotation(Path.class));
+        ResourceMetrics.Resource resource = metrics.register(resourceClass.getName() + "." + method.getName(), httpMethod, path);
+        // first request filter
+        context.register(new ResourceMetricsFilter(resource, tracing), Priorities.AUTHENTICATION - 100);
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        // nothing to do
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return FINISHED;
+    }
+
+    private static String path(Path classPath, Path methodPath) {
+        StringBuilder builder = new StringBuilder();
+        for (Path path : new Path[]{ classPath, methodPath }) {
+            if (path != null) {
+                String value = path.value();
+                if (!value.startsWith("/")) {
+                    builder.append('/');
+                }
+                builder.append(value.endsWith("/") ? value.substring(0, value.length() - 1) : value);
+            }
+        }
+        return (builder.length() == 0) ? "/" : builder.toString();
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Start the latency measure of a resource method (first request filter), and optionally create the request span
+ * (W3C trace context). The latency is recorded when the request finishes (including the response writing and the
+ * exceptions not mapped to a response), and the sampled spans are logged in the tracing logger.
+ */
+class ResourceMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final Logger TRACING = Logger.getLogger("org.apache.karaf.minho.rest.tracing");
+
+    private static final String START = ResourceMetricsFilter.class.getName() + ".start";
+    private static final String RESOURCE = ResourceMetricsFilter.class.getName() + ".resource";
+
+    private final ResourceMetrics.Resource resource;
+    private final boolean tracing;
+
+    ResourceMetricsFilter(ResourceMetrics.Resource resource, boolean tracing) {
+        this.resource = resource;
+        this.tracing = tracing;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        request.setProperty(START, System.nanoTime());
+        request.setProperty(RESOURCE, resource);
+        if (tracing) {
+            request.setProperty(TraceContext.PROPERTY, TraceContext.create(request.getHeaderString(TraceContext.TRACEPARENT), request.getHeaderString(TraceContext.TRACESTATE)));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        Object span = request.getProperty(TraceContext.PROPERTY);
+        if (span instanceof TraceContext) {
+            // trace context of the server span (W3C trace context level 2)
+            response.getHeaders().putSingle("traceresponse", span.toString());
+        }
+    }
+
+    /**
+     * Record the latency of a finished request.
+     *
+     * @param request the request.
+     * @param status the response status (<code>500</code> for the exceptions not mapped to a response).
+     */
+    static void finished(ContainerRequestContext request, int status) {
+        Object start = request.getProperty(START);
+        Object metrics = request.getProperty(RESOURCE);
+        if (start == null || !(metrics instanceof ResourceMetrics.Resource)) {
+            return;
+        }
+        ResourceMetrics.Resource resource = (ResourceMetrics.Resource) metrics;
+        long duration = System.nanoTime() - (long) start;
+        resource.record(status, duration);
+        Object span = request.getProperty(TraceContext.PROPERTY);
+        if (span instanceof TraceContext) {
+            TraceContext traceContext = (TraceContext) span;
+            if (traceContext.isSampled() && TRACING.isLoggable(Level.INFO)) {
+                TRACING.info(String.format(Locale.ROOT, "traceId=%s spanId=%s parentId=%s resource=%s method=%s path=%s status=%d duration=%.3fms",
+                        traceContext.getTraceId(), traceContext.getSpanId(), traceContext.getParentId(), resource.getName(),
+                        request.getMethod(), request.getUriInfo().getPath(), status, duration / (double) TimeUnit.MILLISECONDS.toNanos(1)));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+/**
+ * REST resources metrics MBean, exposing the latency of each resource method by response status class.
+ */
+public interface ResourceMetricsMBean {
+
+    /**
+     * @return the instrumented resource methods (<code>Class.method</code>).
+     */
+    String[] getResources();
+
+    /**
+     * @return the summary of each resource method and status class (count and latency percentiles).
+     */
+    String[] getSummary();
+
+    /**
+     * @return the metrics in Prometheus text format.
+     */
+    String getPrometheus();
+
+    /**
+     * Retrieve the number of requests of a resource method.
+     *
+     * @param resource the resource method (<code>Class.method</code>).
+     * @param status the status class (<code>2xx</code>, <code>4xx</code>, ...).
+     * @return the number of requests.
+     */
+    long count(String resource, String status);
+
+    /**
+     * Retrieve a latency percentile of a resource method.
+     *
+     * @param resource the resource method (<code>Class.method</code>).
+     * @param status the status class (<code>2xx</code>, <code>4xx</code>, ...).
+     * @param quantile the quantile (between 0 and 1, for instance 0.99).
+     * @return the percentile in milliseconds.
+     */
+    double percentile(String resource, String status, double quantile);
+
+}
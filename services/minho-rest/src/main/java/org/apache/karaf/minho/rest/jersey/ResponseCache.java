@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In memory cache of the REST responses, bounded in size (least recently used entries are evicted first),
+ * with time to live.
+ */
+public class ResponseCache {
+
+    // approximate memory used by an entry, in addition to the body
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final long maxSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+    private long size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get a fresh cached response.
+     *
+     * @param key the cache key.
+     * @return the cached response, or <code>null</code> if not cached or expired.
+     */
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            entries.remove(key);
+            size -= entry.size(key);
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Store a response in the cache, evicting the least recently used entries if the cache is full.
+     *
+     * @param key the cache key.
+     * @param entry the response.
+     */
+    public synchronized void put(String key, Entry entry) {
+        long entrySize = entry.size(key);
+        if (entrySize > maxSize) {
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            size -= previous.size(key);
+        }
+        size += entrySize;
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            size -= eldest.getValue().size(eldest.getKey());
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Start loading a response (cache miss). Only the first caller loads the response, the concurrent callers
+     * for the same key get the loading response.
+     *
+     * @param key the cache key.
+     * @param loader the caller loading response.
+     * @return <code>null</code> if the caller has to load the response, the loading response else.
+     */
+    public CompletableFuture<Entry> load(String key, CompletableFuture<Entry> loader) {
+        CompletableFuture<Entry> existing = loading.putIfAbsent(key, loader);
+        if (existing == null) {
+            misses.increment();
+        } else {
+            coalesced.increment();
+        }
+        return existing;
+    }
+
+    /**
+     * Complete the loading of a response.
+     *
+     * @param key the cache key.
+     * @param loader the loading response.
+     * @param entry the loaded response, <code>null</code> if the response is not cacheable.
+     */
+    public void loaded(String key, CompletableFuture<Entry> loader, Entry entry) {
+        loading.remove(key, loader);
+        loader.complete(entry);
+    }
+
+    /**
+     * Abandon a loading response taking too long: the next callers for the key load the response.
+     *
+     * @param key the cache key.
+     * @param loader the loading response.
+     */
+    public void abandon(String key, CompletableFuture<Entry> loader) {
+        loading.remove(key, loader);
+    }
+
+    /**
+     * Remove all cached responses.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    public synchronized int getCount() {
+        return entries.size();
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Cached response (status 200).
+     */
+    public static class Entry {
+
+        private final Map<String, List<Object>> headers;
+        private final byte[] body;
+        private final String etag;
+        private final long created;
+        private final long expires;
+
+        public Entry(Map<String, List<Object>> headers, byte[] body, String etag, long ttl) {
+            this.headers = headers;
+            this.body = body;
+            this.etag = etag;
+            this.created = System.nanoTime();
+            this.expires = created + TimeUnit.SECONDS.toNanos(ttl);
+        }
+
+        public Map<String, List<Object>> getHeaders() {
+            return headers;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return the age of the cached response in seconds.
+         */
+        public long getAge() {
+            return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - created);
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expires >= 0;
+        }
+
+        long size(String key) {
+            return body.length + key.length() * 2L + ENTRY_OVERHEAD;
+        }
+
+    }
+
+}
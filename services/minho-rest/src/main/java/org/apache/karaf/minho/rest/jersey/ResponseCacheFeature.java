@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.DynamicFeature;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.FeatureContext;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Register the response cache filter on the GET resource methods annotated (or in a resource class annotated)
+ * with {@link Cached}. As application event listener, it completes the loading responses when the requests finish.
+ */
+public class ResponseCacheFeature implements DynamicFeature, ApplicationEventListener {
+
+    private final ResponseCache cache;
+    private final long ttl;
+    private final List<String> headers;
+    private final long wait;
+    private final RequestEventListener requestListener;
+
+    /**
+     * @param cache the response cache.
+     * @param ttl the default time to live (in seconds).
+     * @param headers the default request headers part of the cache key.
+     * @param wait the max time (in milliseconds) a concurrent miss waits for the loading response.
+     */
+    public ResponseCacheFeature(ResponseCache cache, long ttl, List<String> headers, long wait) {
+        this.cache = cache;
+        this.ttl = ttl;
+        this.headers = headers;
+        this.wait = wait;
+        this.requestListener = event -> {
+            if (event.getType() == RequestEvent.Type.FINISHED) {
+                ResponseCacheFilter.finished(cache, event.getContainerRequest());
+            }
+        };
+    }
+
+    @Override
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        Method method = resourceInfo.getResourceMethod();
+        if (method == null || !method.isAnnotationPresent(GET.class)) {
+            return;
+        }
+        Cached cached = method.getAnnotation(Cached.class);
+        if (cached == null) {
+            cached = resourceInfo.getResourceClass().getAnnotation(Cached.class);
+        }
+        if (cached == null) {
+            return;
+        }
+        long methodTtl = (cached.ttl() >= 0) ? cached.ttl() : ttl;
+        List<String> methodHeaders = (cached.headers().length > 0) ? Arrays.asList(cached.headers()) : headers;
+        // after the authentication and authorization filters
+        context.register(new ResponseCacheFilter(cache, methodTtl, methodHeaders, wait), Priorities.USER);
+    }
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        // nothing to do
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return requestListener;
+    }
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cache the responses of a GET resource method in the {@link ResponseCache}, honoring the <code>Cache-Control</code>
+ * request and response headers. It supports conditional requests (<code>ETag</code>, <code>If-None-Match</code>),
+ * and coalesces the concurrent misses for the same key: only the first request calls the resource, the others
+ * wait for its response. A request waiting too long abandons the loading response and becomes the loader.
+ */
+class ResponseCacheFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final String KEY = ResponseCacheFilter.class.getName() + ".key";
+    private static final String LOADER = ResponseCacheFilter.class.getName() + ".loader";
+
+    // headers not stored in the cache
+    private static final Set<String> EXCLUDED_HEADERS = Set.of("content-length", "date", "age", "transfer-encoding", "connection");
+    // headers of the not modified (304) responses
+    private static final Set<String> NOT_MODIFIED_HEADERS = Set.of("etag", "cache-control", "expires", "vary", "content-location");
+
+    private final ResponseCache cache;
+    private final long ttl;
+    private final List<String> headers;
+    private final long wait;
+
+    ResponseCacheFilter(ResponseCache cache, long ttl, List<String> headers, long wait) {
+        this.cache = cache;
+        this.ttl = ttl;
+        this.headers = headers;
+        this.wait = wait;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return;
+        }
+        String cacheControl = request.getHeaderString(HttpHeaders.CACHE_CONTROL);
+        if (hasDirective(cacheControl, "no-store")) {
+            return;
+        }
+        if (request.getHeaderString(HttpHeaders.AUTHORIZATION) != null && headers.stream().noneMatch(HttpHeaders.AUTHORIZATION::equalsIgnoreCase)) {
+            // authenticated responses are not shared
+            return;
+        }
+        String key = key(request);
+        if (!hasDirective(cacheControl, "no-cache")) {
+            ResponseCache.Entry entry = cache.get(key);
+            if (entry != null) {
+                request.abortWith(response(request, entry));
+                return;
+            }
+        }
+        CompletableFuture<ResponseCache.Entry> loader = new CompletableFuture<>();
+        CompletableFuture<ResponseCache.Entry> loading = cache.load(key, loader);
+        if (loading != null) {
+            // concurrent miss, waiting for the response of the first request
+            ResponseCache.Entry entry = null;
+            try {
+                entry = loading.get(wait, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                // calling the resource
+            } catch (TimeoutException e) {
+                // the loading response is stale, this request becomes the loader: the next requests wait for its response
+                cache.abandon(key, loading);
+                if (cache.load(key, loader) == null) {
+                    request.setProperty(KEY, key);
+                    request.setProperty(LOADER, loader);
+                }
+                // else another waiter became the loader, calling the resource without waiting again
+                return;
+            }
+            if (entry != null) {
+                request.abortWith(response(request, entry));
+            }
+            return;
+        }
+        request.setProperty(KEY, key);
+        request.setProperty(LOADER, loader);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (response.getStatus() != Response.Status.OK.getStatusCode() || !response.hasEntity()) {
+            finished(cache, request);
+        }
+    }
+
+    /**
+     * Complete the loading response of a request without cacheable response, for instance when the resource throws
+     * an exception not mapped to a response (the response filters and writer interceptors are not called).
+     *
+     * @param cache the response cache.
+     * @param request the request.
+     */
+    @SuppressWarnings("unchecked")
+    static void finished(ResponseCache cache, ContainerRequestContext request) {
+        CompletableFuture<ResponseCache.Entry> loader = (CompletableFuture<ResponseCache.Entry>) request.getProperty(LOADER);
+        if (loader != null) {
+            request.removeProperty(LOADER);
+            cache.loaded((String) request.getProperty(KEY), loader, null);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        CompletableFuture<ResponseCache.Entry> loader = (CompletableFuture<ResponseCache.Entry>) context.getProperty(LOADER);
+        if (loader == null) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(LOADER);
+        String key = (String) context.getProperty(KEY);
+        ResponseCache.Entry entry = null;
+        try {
+            // the response is buffered to be stored, the headers are not committed yet
+            OutputStream output = context.getOutputStream();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            context.setOutputStream(buffer);
+            context.proceed();
+            byte[] body = buffer.toByteArray();
+            MultivaluedMap<String, Object> responseHeaders = context.getHeaders();
+            long entryTtl = ttl(responseHeaders);
+            if (entryTtl > 0) {
+                if (!responseHeaders.containsKey(HttpHeaders.ETAG)) {
+                    responseHeaders.putSingle(HttpHeaders.ETAG, etag(body));
+                }
+                Map<String, List<Object>> cachedHeaders = new LinkedHashMap<>();
+                responseHeaders.forEach((name, values) -> {
+                    if (!EXCLUDED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                        cachedHeaders.put(name, new ArrayList<>(values));
+                    }
+                });
+                entry = new ResponseCache.Entry(cachedHeaders, body, String.valueOf(responseHeaders.getFirst(HttpHeaders.ETAG)), entryTtl);
+                cache.put(key, entry);
+            }
+            context.setOutputStream(output);
+            output.write(body);
+        } finally {
+            cache.loaded(key, loader, entry);
+        }
+    }
+
+    private String key(ContainerRequestContext request) {
+        URI uri = request.getUriInfo().getRequestUri();
+        StringBuilder key = new StringBuilder(uri.getRawPath());
+        if (uri.getRawQuery() != null) {
+            key.append('?').append(uri.getRawQuery());
+        }
+        for (String header : headers) {
+            key.append('\n').append(header).append(':');
+            String value = request.getHeaderString(header);
+            if (value != null) {
+                key.append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Time to live of the response: <code>s-maxage</code> or <code>max-age</code> of the response <code>Cache-Control</code>,
+     * or the configured time to live. The responses with <code>no-store</code>, <code>no-cache</code>, <code>private</code>,
+     * <code>Set-Cookie</code> or <code>Vary: *</code> are not cached.
+     */
+    private long ttl(MultivaluedMap<String, Object> responseHeaders) {
+        if (responseHeaders.containsKey("Set-Cookie") || "*".equals(String.valueOf(responseHeaders.getFirst(HttpHeaders.VARY)).trim())) {
+            return 0;
+        }
+        Object cacheControl = responseHeaders.getFirst(HttpHeaders.CACHE_CONTROL);
+        if (cacheControl == null) {
+            return ttl;
+        }
+        String value = cacheControl.toString();
+        if (hasDirective(value, "no-store") || hasDirective(value, "no-cache") || hasDirective(value, "private")) {
+            return 0;
+        }
+        long maxAge = -1;
+        for (String directive : value.split(",")) {
+            String[] parts = directive.trim().split("=", 2);
+            if (parts.length == 2 && (parts[0].equalsIgnoreCase("s-maxage") || (parts[0].equalsIgnoreCase("max-age") && maxAge < 0))) {
+                try {
+                    maxAge = Long.parseLong(parts[1].trim().replace("\"", ""));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return (maxAge >= 0) ? maxAge : ttl;
+    }
+
+    private static Response response(ContainerRequestContext request, ResponseCache.Entry entry) {
+        boolean notModified = matches(request.getHeaderString(HttpHeaders.IF_NONE_MATCH), entry.getEtag());
+        Response.ResponseBuilder builder = notModified ? Response.notModified() : Response.ok(entry.getBody());
+        entry.getHeaders().forEach((name, values) -> {
+            if (!notModified || NOT_MODIFIED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        return builder.header("Age", entry.getAge()).build();
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String tag = weak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || weak(candidate).equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String weak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static boolean hasDirective(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (String part : cacheControl.split(",")) {
+            String name = part.trim();
+            int index = name.indexOf('=');
+            if ((index < 0 ? name : name.substring(0, index).trim()).equalsIgnoreCase(directive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Can't compute ETag", e);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * JSON provider (Jackson) using a single shared mapper, and streaming the collections, iterators and streams
+ * elements directly to the response output (the entity is not serialized as a whole before being written).
+ * The generator buffers are recycled by Jackson.
+ */
+@Provider
+@Produces({ MediaType.APPLICATION_JSON, "application/*+json" })
+@Consumes({ MediaType.APPLICATION_JSON, "application/*+json" })
+public class StreamingJsonProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    // types handled by the Jersey core providers
+    private static final Set<Class<?>> UNTOUCHABLES = Set.of(InputStream.class, Reader.class, OutputStream.class, Writer.class,
+            byte[].class, char[].class, String.class, StreamingOutput.class, Response.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY;
+    private static final ObjectWriter WRITER;
+
+    static {
+        // the entity streams are managed (closed) by Jersey
+        MAPPER.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        MAPPER.getFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        FACTORY = MAPPER.getFactory();
+        // don't flush the output for each streamed element
+        WRITER = MAPPER.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Retrieve the shared (thread safe) object mapper, for instance to register Jackson modules.
+     *
+     * @return the object mapper.
+     */
+    public static ObjectMapper getObjectMapper() {
+        return MAPPER;
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isJson(mediaType) && !UNTOUCHABLES.contains(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException, WebApplicationException {
+        return MAPPER.readerFor(MAPPER.constructType(genericType != null ? genericType : type)).readValue(entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return isJson(mediaType) && !UNTOUCHABLES.contains(type);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        try (JsonGenerator generator = FACTORY.createGenerator(entityStream, JsonEncoding.UTF8)) {
+            if (entity instanceof Stream) {
+                try (Stream<?> stream = (Stream<?>) entity) {
+                    writeArray(generator, stream.iterator());
+                }
+            } else if (entity instanceof Iterator) {
+                writeArray(generator, (Iterator<?>) entity);
+            } else if (entity instanceof Collection) {
+                // only the collections: other iterables (JsonNode, Path, beans) have their own serialization
+                writeArray(generator, ((Collection<?>) entity).iterator());
+            } else {
+                WRITER.writeValue(generator, entity);
+            }
+        }
+    }
+
+    private static void writeArray(JsonGenerator generator, Iterator<?> elements) throws IOException {
+        generator.writeStartArray();
+        while (elements.hasNext()) {
+            WRITER.writeValue(generator, elements.next());
+        }
+        generator.writeEndArray();
+    }
+
+    private static boolean isJson(MediaType mediaType) {
+        if (mediaType == null) {
+            return true;
+        }
+        String subtype = mediaType.getSubtype();
+        return "json".equalsIgnoreCase(subtype) || subtype.toLowerCase(Locale.ROOT).endsWith("+json");
+    }
+
+}
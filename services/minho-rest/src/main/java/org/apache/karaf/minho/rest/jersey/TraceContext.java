@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * W3C trace context (<code>traceparent</code> header): the REST service creates a span for each request,
+ * child of the incoming trace context if any. The span is available in the request property {@link #PROPERTY},
+ * to propagate it to downstream calls.
+ */
+public class TraceContext {
+
+    public static final String TRACEPARENT = "traceparent";
+    public static final String TRACESTATE = "tracestate";
+    public static final String PROPERTY = TraceContext.class.getName();
+
+    private static final Pattern HEADER = Pattern.compile("[0-9a-f]{2}-[0-9a-f]{32}-[0-9a-f]{16}-[0-9a-f]{2}");
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    private static final String INVALID_SPAN_ID = "0000000000000000";
+
+    private final String traceId;
+    private final String spanId;
+    private final String parentId;
+    private final String flags;
+    private final String state;
+
+    private TraceContext(String traceId, String spanId, String parentId, String flags, String state) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.flags = flags;
+        this.state = state;
+    }
+
+    /**
+     * Create the span of a request.
+     *
+     * @param traceparent the incoming <code>traceparent</code> header, or <code>null</code>.
+     * @param tracestate the incoming <code>tracestate</code> header, or <code>null</code>.
+     * @return the span, child of the incoming trace context if valid, or starting a new (sampled) trace.
+     */
+    public static TraceContext create(String traceparent, String tracestate) {
+        if (traceparent != null) {
+            String header = traceparent.trim();
+            // the version ff is invalid, the future versions can have additional fields
+            if (header.length() >= 55 && HEADER.matcher(header.substring(0, 55)).matches() && !header.startsWith("ff")
+                    && (header.length() == 55 || (!header.startsWith("00") && header.charAt(55) == '-'))) {
+                String traceId = header.substring(3, 35);
+                String parentId = header.substring(36, 52);
+                if (!traceId.equals(INVALID_TRACE_ID) && !parentId.equals(INVALID_SPAN_ID)) {
+                    return new TraceContext(traceId, id(8), parentId, header.substring(53, 55), tracestate);
+                }
+            }
+        }
+        return new TraceContext(id(16), id(8), null, "01", null);
+    }
+
+    private static String id(int bytes) {
+        StringBuilder builder = new StringBuilder(bytes * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String id;
+        do {
+            builder.setLength(0);
+            for (int i = 0; i < bytes; i++) {
+                int value = random.nextInt(256);
+                builder.append(Character.forDigit(value >> 4, 16)).append(Character.forDigit(value & 0xf, 16));
+            }
+            id = builder.toString();
+        } while (id.chars().allMatch(c -> c == '0'));
+        return id;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * @return the incoming span id, or <code>null</code> for a new trace.
+     */
+    public String getParentId() {
+        return parentId;
+    }
+
+    /**
+     * @return the incoming <code>tracestate</code>, or <code>null</code>.
+     */
+    public String getState() {
+        return state;
+    }
+
+    public boolean isSampled() {
+        return (Integer.parseInt(flags, 16) & 1) == 1;
+    }
+
+    /**
+     * @return the <code>traceparent</code> header value of this span, to propagate to downstream calls.
+     */
+    @Override
+    public String toString() {
+        return "00-" + traceId + "-" + spanId + "-" + flags;
+    }
+
+}
@@ -27,8 +27,18 @@ import org.junit.jupiter.api.Test;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 public class JerseyRestServiceTest {
@@ -58,4 +68,264 @@ public class JerseyRestServiceTest {
         minho.close();
     }
 
+    @Test
+    public void async() throws Exception {
+        System.setProperty("rest.packages", "org.apache.karaf.minho.rest.jersey");
+        System.setProperty("rest.asyncThreads", "2");
+
+        JerseyRestService jerseyRestService = new JerseyRestService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(new ConfigService(), new LifeCycleService(), new JettyWebContainerService(), jerseyRestService)).build().start();
+
+        try {
+            Assertions.assertNotNull(jerseyRestService.getAsyncExecutor());
+            Assertions.assertEquals("Hello Suspended!", get("/rest/async/suspended"));
+            Assertions.assertEquals("Hello Stage!", get("/rest/async/stage"));
+            Assertions.assertTrue(get("/rest/async/managed").startsWith("minho-rest-async-"));
+            String events = get("/rest/async/events");
+            Assertions.assertTrue(events.contains("data: event 0"));
+            Assertions.assertTrue(events.contains("data: event 2"));
+        } finally {
+            System.clearProperty("rest.asyncThreads");
+            minho.close();
+        }
+    }
+
+    @Test
+    public void explicitResources() throws Exception {
+        System.clearProperty("rest.packages");
+        System.setProperty("rest.resources", MyRestService.class.getName());
+
+        JerseyRestService jerseyRestService = new JerseyRestService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(new ConfigService(), new LifeCycleService(), new JettyWebContainerService(), jerseyRestService, new RegistryRestService())).build().start();
+
+        try {
+            Assertions.assertNull(jerseyRestService.getRestPackages());
+            Assertions.assertEquals("Hello World!", get("/rest/test"));
+            Assertions.assertEquals("Hello Registry!", get("/rest/registry"));
+            // not scanned
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/rest/async/stage").openConnection();
+            Assertions.assertEquals(404, connection.getResponseCode());
+        } finally {
+            System.clearProperty("rest.resources");
+            minho.close();
+        }
+    }
+
+    @Test
+    public void restIndex() throws Exception {
+        System.setProperty("rest.packages", "org.apache.karaf.minho.rest.jersey");
+        Path index = Path.of("target/test-classes").resolve(JerseyRestService.REST_INDEX);
+        Files.createDirectories(index.getParent());
+        try {
+            // index matching rest.packages: only the indexed resources are registered
+            Files.write(index, List.of("# packages=org.apache.karaf.minho.rest.jersey", MyRestService.class.getName()));
+            Minho minho = Minho.builder().loader(() -> Stream.of(new ConfigService(), new LifeCycleService(), new JettyWebContainerService(), new JerseyRestService())).build().start();
+            try {
+                Assertions.assertEquals("Hello World!", get("/rest/test"));
+                HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/rest/async/stage").openConnection();
+                Assertions.assertEquals(404, connection.getResponseCode());
+            } finally {
+                minho.close();
+            }
+
+            // index built for other packages: ignored, the packages are scanned
+            Files.write(index, List.of("# packages=org.apache.karaf.minho.other", MyRestService.class.getName()));
+            minho = Minho.builder().loader(() -> Stream.of(new ConfigService(), new LifeCycleService(), new JettyWebContainerService(), new JerseyRestService())).build().start();
+            try {
+                Assertions.assertEquals("Hello World!", get("/rest/test"));
+                Assertions.assertEquals("Hello Stage!", get("/rest/async/stage"));
+            } finally {
+                minho.close();
+            }
+        } finally {
+            Files.deleteIfExists(index);
+        }
+    }
+
+    @Test
+    public void streamingJson() throws Exception {
+        System.setProperty("rest.packages", "org.apache.karaf.minho.rest.jersey");
+        System.setProperty("rest.json", "streaming");
+        System.setProperty("rest.bufferSize", "0");
+
+        JerseyRestService jerseyRestService = new JerseyRestService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(new ConfigService(), new LifeCycleService(), new JettyWebContainerService(), jerseyRestService)).build().start();
+
+        try {
+            Assertions.assertEquals("[{\"id\":0},{\"id\":1}]", get("/rest/json/list"));
+            String stream = get("/rest/json/stream");
+            Assertions.assertTrue(stream.startsWith("[{\"id\":0},{\"id\":1},"));
+            Assertions.assertTrue(stream.endsWith(",{\"id\":9999}]"));
+            // iterable JSON nodes are not streamed as arrays
+            Assertions.assertEquals("{\"hello\":\"world\"}", get("/rest/json/node"));
+
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/rest/json/echo").openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write("{\"hello\":\"world\"}".getBytes(StandardCharsets.UTF_8));
+            }
+            Assertions.assertEquals(200, connection.getResponseCode());
+            Assertions.assertEquals("{\"hello\":\"world\"}", new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        } finally {
+            System.clearProperty("rest.json");
+            System.clearProperty("rest.bufferSize");
+            minho.close();
+        }
+    }
+
+    @Test
+    public void responseCache() throws Exception {
+        System.setProperty("rest.packages", "org.apache.karaf.minho.rest.jersey");
+
+        JerseyRestService jerseyRestService = new JerseyRestService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(new ConfigService(), new LifeCycleService(), new JettyWebContainerService(), jerseyRestService)).build().start();
+
+        try {
+            ResponseCache cache = jerseyRestService.getResponseCache();
+            Assertions.assertNotNull(cache);
+
+            String first = get("/rest/cached/counter");
+            Assertions.assertEquals(first, get("/rest/cached/counter"));
+            Assertions.assertEquals(1, cache.getHits());
+
+            // conditional request
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/rest/cached/counter").openConnection();
+            String etag = connection.getHeaderField("ETag");
+            Assertions.assertNotNull(etag);
+            connection = (HttpURLConnection) new URL("http://localhost:8080/rest/cached/counter").openConnection();
+            connection.setRequestProperty("If-None-Match", etag);
+            Assertions.assertEquals(304, connection.getResponseCode());
+
+            // revalidation
+            connection = (HttpURLConnection) new URL("http://localhost:8080/rest/cached/counter").openConnection();
+            connection.setRequestProperty("Cache-Control", "no-cache");
+            Assertions.assertNotEquals(first, new String(connection.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+            // not stored
+            Assertions.assertNotEquals(get("/rest/cached/nostore"), get("/rest/cached/nostore"));
+
+            // a resource throwing an unmapped exception completes its loading response: the next request doesn't wait for it
+            long coalesced = cache.getCoalesced();
+            for (int i = 0; i < 2; i++) {
+                connection = (HttpURLConnection) new URL("http://localhost:8080/rest/cached/failing").openConnection();
+                Assertions.assertEquals(500, connection.getResponseCode());
+            }
+            Assertions.assertEquals(coalesced, cache.getCoalesced());
+
+            // concurrent misses are coalesced
+            ExecutorService executor = Executors.newFixedThreadPool(5);
+            try {
+                List<Future<String>> responses = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    responses.add(executor.submit(() -> get("/rest/cached/slow")));
+                }
+                for (Future<String> response : responses) {
+                    Assertions.assertEquals("1", response.get());
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            Assertions.assertEquals(1, MyCachedRestService.SLOW_COUNTER.get());
+        } finally {
+            minho.close();
+        }
+    }
+
+    @Test
+    public void responseCacheWaitTimeout() throws Exception {
+        System.setProperty("rest.packages", "org.apache.karaf.minho.rest.jersey");
+        System.setProperty("rest.cacheWait", "200");
+
+        JerseyRestService jerseyRestService = new JerseyRestService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(new ConfigService(), new LifeCycleService(), new JettyWebContainerService(), jerseyRestService)).build().start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            ResponseCache cache = jerseyRestService.getResponseCache();
+            List<Future<String>> responses = new ArrayList<>();
+            responses.add(executor.submit(() -> get("/rest/cached/slower")));
+            Thread.sleep(100);
+            for (int i = 0; i < 2; i++) {
+                responses.add(executor.submit(() -> get("/rest/cached/slower")));
+            }
+            for (Future<String> response : responses) {
+                Assertions.assertNotNull(response.get());
+            }
+            // the first waiter timing out became the loader, the other one called the resource without waiting again
+            Assertions.assertEquals(2, cache.getMisses());
+            Assertions.assertEquals(3, cache.getCoalesced());
+        } finally {
+            executor.shutdownNow();
+            System.clearProperty("rest.cacheWait");
+            minho.close();
+        }
+    }
+
+    @Test
+    public void metricsAndTracing() throws Exception {
+        System.setProperty("rest.packages", "org.apache.karaf.minho.rest.jersey");
+        System.setProperty("rest.tracing", "true");
+        System.setProperty("rest.metrics", "true");
+        System.setProperty("rest.metricsPath", "/rest-metrics");
+
+        JerseyRestService jerseyRestService = new JerseyRestService();
+        Minho minho = Minho.builder().loader(() -> Stream.of(new ConfigService(), new LifeCycleService(), new JettyWebContainerService(), jerseyRestService)).build().start();
+
+        try {
+            ResourceMetrics metrics = jerseyRestService.getMetrics();
+            Assertions.assertNotNull(metrics);
+
+            HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/rest/test").openConnection();
+            connection.setRequestProperty("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+            Assertions.assertEquals(200, connection.getResponseCode());
+            String traceResponse = connection.getHeaderField("traceresponse");
+            Assertions.assertNotNull(traceResponse);
+            Assertions.assertTrue(traceResponse.startsWith("00-4bf92f3577b34da6a3ce929d0e0e4736-"));
+            Assertions.assertFalse(traceResponse.contains("00f067aa0ba902b7"));
+
+            // recorded when the request finishes, after the response is sent
+            String resource = MyRestService.class.getName() + ".helloWorld";
+            awaitCount(metrics, resource, "2xx");
+            Assertions.assertEquals(1, metrics.count(resource, "2xx"));
+            Assertions.assertTrue(metrics.percentile(resource, "2xx", 0.99) > 0);
+            Assertions.assertTrue(Arrays.stream(metrics.getSummary()).anyMatch(line -> line.startsWith(resource + " GET /test 2xx count=1")));
+
+            String prometheus = get("/rest-metrics");
+            Assertions.assertTrue(prometheus.contains("minho_rest_request_duration_seconds_count{resource=\"" + resource + "\",method=\"GET\",path=\"/test\",status=\"2xx\"} 1"));
+
+            // exceptions not mapped to a response are recorded as server errors
+            connection = (HttpURLConnection) new URL("http://localhost:8080/rest/cached/failing").openConnection();
+            Assertions.assertEquals(500, connection.getResponseCode());
+            String failing = MyCachedRestService.class.getName() + ".failing";
+            awaitCount(metrics, failing, "5xx");
+            Assertions.assertEquals(1, metrics.count(failing, "5xx"));
+        } finally {
+            System.clearProperty("rest.tracing");
+            System.clearProperty("rest.metrics");
+            System.clearProperty("rest.metricsPath");
+            minho.close();
+        }
+    }
+
+    private static void awaitCount(ResourceMetrics metrics, String resource, String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (metrics.count(resource, status) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private String get(String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080" + path).openConnection();
+        StringBuilder buffer = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                buffer.append(line);
+            }
+        }
+        return buffer.toString();
+    }
+
 }
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.glassfish.jersey.server.ManagedAsync;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+@Path("/async")
+public class MyAsyncRestService {
+
+    @GET
+    @Path("/suspended")
+    @Produces(MediaType.TEXT_PLAIN)
+    public void suspended(@Suspended AsyncResponse response) {
+        CompletableFuture.runAsync(() -> response.resume("Hello Suspended!"));
+    }
+
+    @GET
+    @Path("/stage")
+    @Produces(MediaType.TEXT_PLAIN)
+    public CompletionStage<String> stage() {
+        return CompletableFuture.supplyAsync(() -> "Hello Stage!");
+    }
+
+    @GET
+    @Path("/managed")
+    @ManagedAsync
+    @Produces(MediaType.TEXT_PLAIN)
+    public String managed() {
+        return Thread.currentThread().getName();
+    }
+
+    @GET
+    @Path("/events")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void events(@Context SseEventSink sink, @Context Sse sse) {
+        CompletableFuture.runAsync(() -> {
+            try (SseEventSink eventSink = sink) {
+                for (int i = 0; i < 3; i++) {
+                    eventSink.send(sse.newEvent("message", "event " + i));
+                }
+            }
+        });
+    }
+
+}
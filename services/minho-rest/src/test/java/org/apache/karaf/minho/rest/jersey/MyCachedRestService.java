@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Path("/cached")
+@Produces(MediaType.TEXT_PLAIN)
+public class MyCachedRestService {
+
+    static final AtomicInteger COUNTER = new AtomicInteger();
+    static final AtomicInteger SLOW_COUNTER = new AtomicInteger();
+    static final AtomicInteger SLOWER_COUNTER = new AtomicInteger();
+
+    @GET
+    @Cached
+    @Path("/counter")
+    public String counter() {
+        return String.valueOf(COUNTER.incrementAndGet());
+    }
+
+    @GET
+    @Cached
+    @Path("/slow")
+    public String slow() throws Exception {
+        Thread.sleep(500);
+        return String.valueOf(SLOW_COUNTER.incrementAndGet());
+    }
+
+    @GET
+    @Cached
+    @Path("/slower")
+    public String slower() throws Exception {
+        Thread.sleep(1000);
+        return String.valueOf(SLOWER_COUNTER.incrementAndGet());
+    }
+
+    @GET
+    @Cached
+    @Path("/failing")
+    public String failing() {
+        throw new IllegalStateException("failing resource");
+    }
+
+    @GET
+    @Cached
+    @Path("/nostore")
+    public Response noStore() {
+        return Response.ok(String.valueOf(COUNTER.incrementAndGet())).header("Cache-Control", "no-store").build();
+    }
+
+}
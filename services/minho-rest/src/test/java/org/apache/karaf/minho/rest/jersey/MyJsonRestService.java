@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.karaf.minho.rest.jersey;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+@Path("/json")
+@Produces(MediaType.APPLICATION_JSON)
+public class MyJsonRestService {
+
+    @GET
+    @Path("/list")
+    public List<Map<String, Integer>> list() {
+        return List.of(Map.of("id", 0), Map.of("id", 1));
+    }
+
+    @GET
+    @Path("/stream")
+    public Stream<Map<String, Integer>> stream() {
+        return IntStream.range(0, 10000).mapToObj(i -> Map.of("id", i));
+    }
+
+    @GET
+    @Path("/node")
+    public ObjectNode node() {
+        return StreamingJsonProvider.getObjectMapper().createObjectNode().put("hello", "world");
+    }
+
+    @POST
+    @Path("/echo")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Map<String, Object> echo(Map<String, Object> body) {
+        return body;
+    }
+
+}
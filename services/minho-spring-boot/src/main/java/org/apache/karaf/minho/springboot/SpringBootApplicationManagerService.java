@@ -45,6 +45,11 @@ public class SpringBootApplicationManagerService implements Service {
         return DEFAULT_PRIORITY + 100;
     }
 
+    @Override
+    public List<Class<?>> dependencies() {
+        return List.of(ConfigService.class, LifeCycleService.class, ClassLoaderService.class);
+    }
+
     @Override
     public void onRegister(ServiceRegistry serviceRegistry) throws Exception {
         ClassLoaderService classLoaderService = serviceRegistry.get(ClassLoaderService.class);
@@ -20,14 +20,21 @@ package org.apache.karaf.minho.tooling.common;
 import lombok.Data;
 import lombok.extern.java.Log;
 import org.apache.karaf.minho.boot.config.Config;
+import org.apache.karaf.minho.boot.config.ConfigSnapshot;
+import org.apache.karaf.minho.boot.service.IndexedServiceLoader;
+import org.apache.karaf.minho.boot.spi.ConfigLoader;
+import org.apache.karaf.minho.boot.spi.Service;
 import org.apache.karaf.minho.tooling.common.maven.Parser;
 import org.apache.karaf.minho.tooling.common.model.MinhoBuild;
 
 import java.io.*;
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.nio.file.*;
 import java.util.*;
 import java.util.jar.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -35,6 +42,12 @@ import java.util.zip.ZipOutputStream;
 @Log
 public class Runtime {
 
+    // REST resources index, loaded by the minho-rest service instead of the packages scanning
+    private static final String REST_INDEX = "META-INF/minho/rest-resources.index";
+    private static final String REST_INDEX_PACKAGES = "# packages=";
+    private static final String REST_PACKAGES = "rest.packages";
+    private static final Set<String> REST_ANNOTATIONS = Set.of("jakarta.ws.rs.Path", "jakarta.ws.rs.ext.Provider");
+
     private String name;
     private String version;
     private Map<String, Object> properties = new HashMap<>();
@@ -140,6 +153,23 @@ public class Runtime {
                 }
             }
         });
+        // precompute the services index
+        if (properties == null || properties.get("minho.index") == null || !properties.get("minho.index").toString().equalsIgnoreCase("false")) {
+            createServicesIndex(libFolder, exploded);
+        }
+        boolean snapshot = properties == null || properties.get("minho.snapshot") == null || !properties.get("minho.snapshot").toString().equalsIgnoreCase("false");
+        boolean restIndex = properties == null || properties.get("minho.restIndex") == null || !properties.get("minho.restIndex").toString().equalsIgnoreCase("false");
+        if (snapshot || restIndex) {
+            Config embeddedConfig = loadEmbeddedConfig(exploded);
+            // precompile the embedded configuration
+            if (snapshot && embeddedConfig != null) {
+                createConfigSnapshot(exploded, embeddedConfig);
+            }
+            // precompute the REST resources index
+            if (restIndex && embeddedConfig != null) {
+                createRestIndex(exploded, embeddedConfig);
+            }
+        }
         // package all as a uber jar
         Path uberJarPath = baseFolder.resolve(name + ".jar");
         // add Main-Class in the manifest
@@ -167,6 +197,135 @@ public class Runtime {
         }
     }
 
+    private void createServicesIndex(Path libFolder, Path exploded) throws Exception {
+        Path servicesFile = exploded.resolve("META-INF/services/" + Service.class.getName());
+        if (!Files.exists(servicesFile)) {
+            log.warning("No Minho service found, services index not created");
+            return;
+        }
+        log.info("Creating Minho services index");
+        List<URL> urls = new ArrayList<>();
+        try (Stream<Path> artifacts = Files.list(libFolder)) {
+            for (Path artifact : artifacts.filter(artifact -> artifact.toString().endsWith(".jar")).collect(Collectors.toList())) {
+                urls.add(artifact.toUri().toURL());
+            }
+        }
+        List<Service> services = new ArrayList<>();
+        try (URLClassLoader classLoader = new URLClassLoader(urls.toArray(new URL[]{}), Runtime.class.getClassLoader())) {
+            for (String line : Files.readAllLines(servicesFile)) {
+                String className = line.trim();
+                if (className.isEmpty() || className.startsWith("#") || services.stream().anyMatch(service -> service.getClass().getName().equals(className))) {
+                    continue;
+                }
+                try {
+                    services.add((Service) classLoader.loadClass(className).getDeclaredConstructor().newInstance());
+                } catch (Throwable e) {
+                    // an incomplete index would hide services at runtime, fallback to services scanning
+                    log.warning("Can't load service " + className + ", services index not created: " + e);
+                    return;
+                }
+            }
+            Path index = exploded.resolve(IndexedServiceLoader.INDEX);
+            Files.createDirectories(index.getParent());
+            try (Writer writer = Files.newBufferedWriter(index)) {
+                IndexedServiceLoader.write(services, writer);
+            }
+        }
+    }
+
+    private Config loadEmbeddedConfig(Path exploded) throws Exception {
+        Path servicesFile = exploded.resolve("META-INF/services/" + Service.class.getName());
+        if (!Files.exists(servicesFile)) {
+            return null;
+        }
+        log.info("Loading Minho embedded configuration");
+        Config config = new Config();
+        boolean embedded = false;
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{ exploded.toUri().toURL() }, Runtime.class.getClassLoader())) {
+            Thread.currentThread().setContextClassLoader(classLoader);
+            List<Service> loaders = new ArrayList<>();
+            for (String line : Files.readAllLines(servicesFile)) {
+                String className = line.trim();
+                if (className.isEmpty() || className.startsWith("#")) {
+                    continue;
+                }
+                Class<?> serviceClass = classLoader.loadClass(className);
+                if (ConfigLoader.class.isAssignableFrom(serviceClass) && loaders.stream().noneMatch(loader -> loader.getClass() == serviceClass)) {
+                    loaders.add((Service) serviceClass.getDeclaredConstructor().newInstance());
+                }
+            }
+            loaders.sort(Comparator.comparingInt(Service::priority));
+            for (Service loader : loaders) {
+                embedded |= ((ConfigLoader) loader).loadEmbedded(config);
+            }
+        } catch (Throwable e) {
+            // a partial snapshot would hide configuration at runtime, fallback to configuration loading
+            log.warning("Can't load embedded configuration, configuration snapshot not created: " + e);
+            return null;
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+        }
+        if (!embedded) {
+            log.info("No embedded configuration found, configuration snapshot not created");
+            return null;
+        }
+        return config;
+    }
+
+    private void createConfigSnapshot(Path exploded, Config config) throws Exception {
+        log.info("Creating Minho configuration snapshot");
+        Path snapshot = exploded.resolve(ConfigSnapshot.LOCATION);
+        Files.createDirectories(snapshot.getParent());
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(snapshot))) {
+            ConfigSnapshot.write(config, outputStream);
+        }
+    }
+
+    private void createRestIndex(Path exploded, Config config) throws Exception {
+        String packages = config.getProperty(REST_PACKAGES);
+        if (packages == null) {
+            return;
+        }
+        log.info("Creating Minho REST resources index");
+        List<String> restPackages = Arrays.stream(packages.split("[,;\\s]+")).filter(restPackage -> !restPackage.isEmpty()).sorted().distinct().collect(Collectors.toList());
+        // the index is only used at runtime for the same packages
+        List<String> resources = new ArrayList<>();
+        resources.add(REST_INDEX_PACKAGES + String.join(",", restPackages));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{ exploded.toUri().toURL() }, Runtime.class.getClassLoader())) {
+            for (String restPackage : restPackages) {
+                Path packageFolder = exploded.resolve(restPackage.replace('.', '/'));
+                if (!Files.isDirectory(packageFolder)) {
+                    // an incomplete index would hide resources at runtime, fallback to packages scanning
+                    log.warning("REST package " + restPackage + " not found, REST resources index not created");
+                    return;
+                }
+                // same as the Jersey package scanning: recursive, classes annotated with @Path or @Provider
+                List<Path> classFiles;
+                try (Stream<Path> files = Files.walk(packageFolder)) {
+                    classFiles = files.filter(file -> file.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+                }
+                for (Path classFile : classFiles) {
+                    String relative = exploded.relativize(classFile).toString().replace(File.separatorChar, '/');
+                    String className = relative.substring(0, relative.length() - ".class".length()).replace('/', '.');
+                    try {
+                        Class<?> clazz = classLoader.loadClass(className);
+                        if (Arrays.stream(clazz.getAnnotations()).anyMatch(annotation -> REST_ANNOTATIONS.contains(annotation.annotationType().getName()))) {
+                            resources.add(className);
+                        }
+                    } catch (Throwable e) {
+                        // an incomplete index would hide resources at runtime, fallback to packages scanning
+                        log.warning("Can't load class " + className + ", REST resources index not created: " + e);
+                        return;
+                    }
+                }
+            }
+        }
+        Path index = exploded.resolve(REST_INDEX);
+        Files.createDirectories(index.getParent());
+        Files.write(index, resources);
+    }
+
     private void addJarContent(Path source, String base, JarOutputStream target) throws Exception {
         String name = source.toString().substring(base.length() + 1);
         name = name.replace("\\", "/");